@@ -0,0 +1,65 @@
+package com.example.falcon_strike_app;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Compares drawing the backdrop tile by tile, as GamePanel used to, with the cached strip of
+ * BackgroundLayer on a tablet-sized surface. Logs the average time per frame of each, and checks
+ * that scrolling does not rebuild the strip.
+ */
+@RunWith(AndroidJUnit4.class)
+public class BackgroundBenchmark {
+    private static final String TAG = "BackgroundBenchmark";
+    private static final int SCREEN_WIDTH = 1600;
+    private static final int SCREEN_HEIGHT = 2560;
+    private static final int TILE_SIZE = 128;
+    private static final int WARMUP_FRAMES = 30;
+    private static final int MEASURED_FRAMES = 120;
+    private static final float SCROLL_PER_FRAME = 2.5f;
+
+    @Test
+    public void compareTiledAndCached() {
+        Bitmap tile = Bitmap.createBitmap(TILE_SIZE, TILE_SIZE, Bitmap.Config.ARGB_8888);
+        tile.eraseColor(0xff2060a0);
+        Canvas canvas = new Canvas(Bitmap.createBitmap(SCREEN_WIDTH, SCREEN_HEIGHT, Bitmap.Config.ARGB_8888));
+        BackgroundLayer layer = new BackgroundLayer(new Bitmap[]{tile});
+
+        for (int frame = 0; frame < WARMUP_FRAMES; frame++) {
+            drawTiled(canvas, tile, frame * SCROLL_PER_FRAME);
+            layer.draw(canvas, 0, frame * SCROLL_PER_FRAME, SCREEN_WIDTH, SCREEN_HEIGHT);
+        }
+
+        long start = System.nanoTime();
+        for (int frame = 0; frame < MEASURED_FRAMES; frame++) {
+            drawTiled(canvas, tile, frame * SCROLL_PER_FRAME);
+        }
+        long tiled = (System.nanoTime() - start) / MEASURED_FRAMES;
+
+        start = System.nanoTime();
+        for (int frame = 0; frame < MEASURED_FRAMES; frame++) {
+            layer.draw(canvas, 0, frame * SCROLL_PER_FRAME, SCREEN_WIDTH, SCREEN_HEIGHT);
+        }
+        long cached = (System.nanoTime() - start) / MEASURED_FRAMES;
+
+        Log.i(TAG, String.format("tiled %d us/frame, cached strip %d us/frame", tiled / 1000, cached / 1000));
+        assertEquals("strip rebuilds", 1, layer.getRebuildCount());
+    }
+
+    // The per-frame tile loop BackgroundLayer replaces
+    private static void drawTiled(Canvas canvas, Bitmap tile, float scrollY) {
+        for (int y = (int) (scrollY % tile.getHeight()) - tile.getHeight(); y < SCREEN_HEIGHT; y += tile.getHeight()) {
+            for (int x = 0; x < SCREEN_WIDTH; x += tile.getWidth()) {
+                canvas.drawBitmap(tile, x, y, null);
+            }
+        }
+    }
+}
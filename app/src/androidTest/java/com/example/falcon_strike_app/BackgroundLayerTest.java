@@ -0,0 +1,52 @@
+package com.example.falcon_strike_app;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.falconstrikeapp.R;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Builds the backdrop strip from a tile decoded by BitmapDecoder, the way the game loads it, and
+ * checks that the screen shows the tile repeated pixel for pixel at the tile's own size, on a
+ * canvas that has the display density.
+ */
+@RunWith(AndroidJUnit4.class)
+public class BackgroundLayerTest {
+    private static final int SCREEN_WIDTH = 1080;
+    private static final int SCREEN_HEIGHT = 1920;
+    private static final float TILE_SCALE = 1.37f;  // Any scale that neither inSampleSize nor the density alone reaches
+    private static final int SAMPLES = 24;  // Sample points per axis
+
+    @Test
+    public void stripRepeatsDecodedTileUnscaled() {
+        Resources resources = InstrumentationRegistry.getInstrumentation().getTargetContext().getResources();
+        BitmapDecoder decoder = new BitmapDecoder(resources, Long.MAX_VALUE);
+        Bitmap tile = decoder.decode(R.drawable.water, BitmapDecoder.AssetClass.TILE, TILE_SCALE);
+        BackgroundLayer layer = new BackgroundLayer(new Bitmap[]{tile});
+
+        Bitmap screen = Bitmap.createBitmap(SCREEN_WIDTH, SCREEN_HEIGHT, Bitmap.Config.RGB_565);
+        screen.setDensity(resources.getDisplayMetrics().densityDpi);
+        Canvas canvas = new Canvas(screen);
+        int scrollY = tile.getHeight() / 3;  // Whole rows, so no row straddles two pixels
+        layer.draw(canvas, 0, scrollY, SCREEN_WIDTH, SCREEN_HEIGHT);
+
+        int offset = tile.getHeight() - scrollY;  // Screen row 0 shows this tile row
+        for (int sy = 0; sy < SAMPLES; sy++) {
+            int y = sy * (SCREEN_HEIGHT - 1) / (SAMPLES - 1);
+            for (int sx = 0; sx < SAMPLES; sx++) {
+                int x = sx * (SCREEN_WIDTH - 1) / (SAMPLES - 1);
+                assertEquals("pixel " + x + "," + y, tile.getPixel(x % tile.getWidth(), (y + offset) % tile.getHeight()), screen.getPixel(x, y));
+            }
+        }
+        decoder.recycle(tile);
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.falcon_strike_app;
+
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Compares the broadphase strategies on a vertical-shooter scene: bullets rising and enemies
+ * falling in columns. Logs the average time per pass for each entity count and checks that
+ * both strategies agree on the number of overlapping pairs.
+ */
+@RunWith(AndroidJUnit4.class)
+public class BroadphaseBenchmark {
+    private static final String TAG = "BroadphaseBenchmark";
+    private static final int SCREEN_WIDTH = 1080;
+    private static final int SCREEN_HEIGHT = 2400;
+    private static final int CELL_SIZE = 100;
+    private static final int WARMUP_FRAMES = 60;
+    private static final int MEASURED_FRAMES = 120;
+    private static final float FRAME_SECONDS = 1 / 60f;
+
+    @Test
+    public void compareStrategies() {
+        Log.i(TAG, "entities   grid ns/pass   sap ns/pass   winner");
+        for (int count : new int[]{100, 500, 1000, 2000, 4000}) {
+            long grid = run(new GridBroadphase(CELL_SIZE, SCREEN_WIDTH, SCREEN_HEIGHT), count);
+            long sweep = run(new SweepAndPruneBroadphase(), count);
+            Log.i(TAG, String.format("%8d %14d %13d   %s", count, grid, sweep, grid <= sweep ? "grid" : "sweep-and-prune"));
+        }
+    }
+
+    @Test
+    public void strategiesFindTheSamePairs() {
+        Scene scene = new Scene(1500);
+        GridBroadphase grid = new GridBroadphase(CELL_SIZE, SCREEN_WIDTH, SCREEN_HEIGHT);
+        SweepAndPruneBroadphase sweep = new SweepAndPruneBroadphase();
+        for (int frame = 0; frame < 30; frame++) {
+            scene.step();
+            assertEquals("frame " + frame,
+                    grid.findPairs(scene.mLeft, scene.mTop, scene.mRight, scene.mBottom, scene.mCount),
+                    sweep.findPairs(scene.mLeft, scene.mTop, scene.mRight, scene.mBottom, scene.mCount));
+        }
+    }
+
+    // Returns the average nanoseconds per pass after warming up the strategy
+    private static long run(Broadphase broadphase, int count) {
+        Scene scene = new Scene(count);
+        for (int frame = 0; frame < WARMUP_FRAMES; frame++) {
+            scene.step();
+            broadphase.findPairs(scene.mLeft, scene.mTop, scene.mRight, scene.mBottom, scene.mCount);
+        }
+        long total = 0;
+        for (int frame = 0; frame < MEASURED_FRAMES; frame++) {
+            scene.step();
+            long start = System.nanoTime();
+            broadphase.findPairs(scene.mLeft, scene.mTop, scene.mRight, scene.mBottom, scene.mCount);
+            total += System.nanoTime() - start;
+        }
+        return total / MEASURED_FRAMES;
+    }
+
+    // Two thirds bullets moving up, one third enemies moving down, all locked to columns
+    private static class Scene {
+        final int mCount;
+        final float[] mX, mY, mSpeed, mHalfWidth, mHalfHeight;
+        final float[] mLeft, mTop, mRight, mBottom;
+
+        Scene(int count) {
+            Random random = new Random(count);
+            mCount = count;
+            mX = new float[count];
+            mY = new float[count];
+            mSpeed = new float[count];
+            mHalfWidth = new float[count];
+            mHalfHeight = new float[count];
+            mLeft = new float[count];
+            mTop = new float[count];
+            mRight = new float[count];
+            mBottom = new float[count];
+            for (int i = 0; i < count; i++) {
+                boolean bullet = i % 3 != 0;
+                mX[i] = (random.nextInt(SCREEN_WIDTH / 40) + 0.5f) * 40;
+                mY[i] = random.nextFloat() * SCREEN_HEIGHT;
+                mSpeed[i] = bullet ? -900f : 150f + random.nextFloat() * 450f;
+                mHalfWidth[i] = bullet ? 8f : 48f;
+                mHalfHeight[i] = bullet ? 20f : 48f;
+            }
+        }
+
+        void step() {
+            for (int i = 0; i < mCount; i++) {
+                mY[i] += mSpeed[i] * FRAME_SECONDS;
+                if (mY[i] < 0) mY[i] += SCREEN_HEIGHT;
+                if (mY[i] > SCREEN_HEIGHT) mY[i] -= SCREEN_HEIGHT;
+                mLeft[i] = mX[i] - mHalfWidth[i];
+                mRight[i] = mX[i] + mHalfWidth[i];
+                mTop[i] = mY[i] - mHalfHeight[i];
+                mBottom[i] = mY[i] + mHalfHeight[i];
+            }
+        }
+    }
+}
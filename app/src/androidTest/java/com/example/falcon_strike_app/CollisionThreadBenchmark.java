@@ -0,0 +1,188 @@
+package com.example.falcon_strike_app;
+
+import android.graphics.Bitmap;
+import android.os.SystemClock;
+import android.system.Os;
+import android.system.OsConstants;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compares the CPU cost and collision rate of the two ways of scheduling collision detection.
+ * The old thread ran passes back to back over the live sprites whether or not anything had moved,
+ * reporting the same overlap on every pass; the current one runs one pass per simulation tick and
+ * parks in between. Both run here on the current CollisionThread over the same scene, stepped at
+ * 60 Hz, so only the scheduling differs. Logs passes/s, collisions reported/s and the collision
+ * thread's CPU time, read from /proc, as a share of one core.
+ */
+@RunWith(AndroidJUnit4.class)
+public class CollisionThreadBenchmark {
+    private static final String TAG = "CollisionThreadBenchmark";
+    private static final String THREAD_NAME = "CollisionThread";  // As the kernel sees it, at most 15 characters
+    private static final int SCREEN_WIDTH = 1080;
+    private static final int SCREEN_HEIGHT = 2400;
+    private static final int COLUMNS = 16;
+    private static final int ENTITY_CAPACITY = 64;
+    private static final long TICK_NANOS = 1000000000L / 60;
+    private static final long MEASURED_MILLIS = 5000;
+
+    private final CollisionCounter mCounter = new CollisionCounter();
+
+    // Counts hits without acting on them, so the scene keeps colliding
+    private static class CollisionCounter implements CollisionListener {
+        long mHits;
+
+        @Override
+        public boolean onPlayerEnemyCollision(int enemy) {
+            mHits++;
+            return false;
+        }
+
+        @Override
+        public boolean onBulletEnemyCollision(int bullet, int enemy) {
+            mHits++;
+            return false;
+        }
+    }
+
+    @Test
+    public void compareBackToBackAndPerTick() throws IOException {
+        Result backToBack = run(true);
+        Result perTick = run(false);
+        Log.i(TAG, "schedule       passes/s   collisions/s   CPU % of one core");
+        Log.i(TAG, backToBack.format("back to back"));
+        Log.i(TAG, perTick.format("once per tick"));
+
+        assertTrue("per-tick passes " + perTick.mPassesPerSecond, perTick.mPassesPerSecond <= 61);
+        assertTrue("collisions found", perTick.mCollisionsPerSecond > 0);
+    }
+
+    private Result run(boolean backToBack) throws IOException {
+        EntityStore store = createScene();
+        CollisionSnapshot snapshot = new CollisionSnapshot();
+        CollisionEventRing events = new CollisionEventRing(256, ENTITY_CAPACITY);
+        CollisionThread thread = new CollisionThread(100, SCREEN_WIDTH, SCREEN_HEIGHT, CollisionThread.BroadphaseType.GRID, events);
+        thread.start();
+        SystemClock.sleep(100);  // Let the thread start and name itself
+        File stat = findThreadStat();
+        assertNotNull("no " + THREAD_NAME + " task", stat);
+
+        snapshot.addEntities(store, TICK_NANOS / 1e9f);
+        mCounter.mHits = 0;
+        long passes = 0;
+        long startTicks = readCpuTicks(stat);
+        long startNanos = System.nanoTime();
+        long endNanos = startNanos + MEASURED_MILLIS * 1000000L;
+        long nextTickNanos = startNanos;
+        while (true) {
+            long now = System.nanoTime();
+            if (now >= endNanos) break;
+            if (now >= nextTickNanos) {
+                thread.awaitPass();
+                events.drain(mCounter);
+                step(store, snapshot);
+                nextTickNanos += TICK_NANOS;
+            } else if (backToBack) {
+                thread.awaitPass();  // Rescan the same positions, as the old loop did
+                events.drain(mCounter);
+            } else {
+                SystemClock.sleep(Math.max(1, (nextTickNanos - now) / 1000000));
+                continue;
+            }
+            thread.submit(snapshot);
+            passes++;
+        }
+        thread.awaitPass();
+        events.drain(mCounter);
+        long cpuTicks = readCpuTicks(stat) - startTicks;
+        float seconds = (System.nanoTime() - startNanos) / 1e9f;
+        thread.shutDown();
+
+        Result result = new Result();
+        result.mPassesPerSecond = passes / seconds;
+        result.mCollisionsPerSecond = mCounter.mHits / seconds;
+        result.mCpuPercent = 100f * cpuTicks / Os.sysconf(OsConstants._SC_CLK_TCK) / seconds;
+        return result;
+    }
+
+    // Enemies falling and bullets rising in the same columns, so every column collides regularly
+    private static EntityStore createScene() {
+        Bitmap bitmap = Bitmap.createBitmap(96, 32, Bitmap.Config.ARGB_8888);
+        bitmap.eraseColor(0xffffffff);
+        SpriteSheet sheet = new SpriteSheet(bitmap, 3);
+        sheet.setCollisionMask(new CollisionMask(bitmap, 3));
+        EntityStore store = new EntityStore(new SpriteSheet[]{sheet});
+        store.prewarm(ENTITY_CAPACITY);
+        for (int column = 0; column < COLUMNS; column++) {
+            float x = (column + 0.5f) * SCREEN_WIDTH / COLUMNS;
+            store.spawn(SpriteType.ENEMY, 0, 6, x, column * 150f, 0, 300f);
+            store.spawn(SpriteType.BULLET, 0, 6, x, SCREEN_HEIGHT - column * 150f, 0, -600f);
+        }
+        store.commit();
+        return store;
+    }
+
+    // Advance the scene by one tick, wrap whatever left the screen, and rebuild the snapshot
+    private static void step(EntityStore store, CollisionSnapshot snapshot) {
+        float deltaTime = TICK_NANOS / 1e9f;
+        store.integrate(deltaTime);
+        for (int i = 0; i < store.size(); i++) {
+            float y = store.getY(i);
+            if (y > SCREEN_HEIGHT) {
+                store.place(i, store.getX(i), 0, SCREEN_WIDTH, SCREEN_HEIGHT);
+            } else if (y < 0) {
+                store.place(i, store.getX(i), SCREEN_HEIGHT, SCREEN_WIDTH, SCREEN_HEIGHT);
+            }
+        }
+        store.commit();
+        snapshot.clear();
+        snapshot.addEntities(store, deltaTime);
+    }
+
+    private static File findThreadStat() throws IOException {
+        File[] tasks = new File("/proc/self/task").listFiles();
+        if (tasks == null) return null;
+        for (File task : tasks) {
+            if (THREAD_NAME.equals(readLine(new File(task, "comm")))) {
+                return new File(task, "stat");
+            }
+        }
+        return null;
+    }
+
+    // utime + stime of a task, in clock ticks
+    private static long readCpuTicks(File stat) throws IOException {
+        String line = readLine(stat);
+        String[] fields = line.substring(line.lastIndexOf(')') + 2).split(" ");
+        return Long.parseLong(fields[11]) + Long.parseLong(fields[12]);
+    }
+
+    private static String readLine(File file) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            String line = reader.readLine();
+            return line != null ? line.trim() : null;
+        }
+    }
+
+    private static class Result {
+        float mPassesPerSecond;
+        float mCollisionsPerSecond;
+        float mCpuPercent;
+
+        String format(String schedule) {
+            return String.format("%-13s %10.1f %14.1f %19.1f", schedule, mPassesPerSecond, mCollisionsPerSecond, mCpuPercent);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.falcon_strike_app;
+
+import android.app.Instrumentation;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.os.Debug;
+import android.os.SystemClock;
+import android.view.MotionEvent;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that a steady-state game tick and frame do not allocate on the calling thread. A real
+ * GamePanel is driven the way SimulationThread and GameThread drive it: touch samples from the input
+ * ring, collision events drained from the collision thread, timers, entity integrate/animate/commit,
+ * publishFrame(), then render() through SpriteBatch and HudText. The player is dragged, so bullets
+ * fire and enemies spawn and get hit. Three seconds of game time allow at most one hit on the player,
+ * so the game cannot end while it is measured.
+ */
+@RunWith(AndroidJUnit4.class)
+public class FrameAllocationTest {
+    private static final int SCREEN_WIDTH = 1080;
+    private static final int SCREEN_HEIGHT = 1920;
+    private static final int WARMUP_TICKS = 120;
+    private static final int MEASURED_TICKS = 60;
+    private static final long STEP_NANOS = 1000000000L / 60;
+
+    private GamePanel mPanel;
+    private Canvas mCanvas;
+    private long mTimeNanos;
+
+    @Test
+    public void steadyStateTickAllocatesNothing() {
+        Instrumentation instrumentation = InstrumentationRegistry.getInstrumentation();
+        instrumentation.runOnMainSync(this::createGame);  // Views need the main looper
+        drag();
+
+        for (int tick = 0; tick < WARMUP_TICKS; tick++) {
+            runTick();
+        }
+
+        Debug.startAllocCounting();
+        Debug.resetThreadAllocSize();
+        for (int tick = 0; tick < MEASURED_TICKS; tick++) {
+            runTick();
+        }
+        int allocatedBytes = Debug.getThreadAllocSize();
+        Debug.stopAllocCounting();
+
+        mPanel.stopCollisions();
+        instrumentation.runOnMainSync(mPanel::release);
+        assertEquals("bytes allocated in " + MEASURED_TICKS + " ticks", 0, allocatedBytes);
+    }
+
+    private void createGame() {
+        mPanel = new GamePanel(InstrumentationRegistry.getInstrumentation().getTargetContext(), null);
+        mPanel.layout(0, 0, SCREEN_WIDTH, SCREEN_HEIGHT);
+        mPanel.start();
+        mCanvas = new Canvas(Bitmap.createBitmap(SCREEN_WIDTH, SCREEN_HEIGHT, Bitmap.Config.ARGB_8888));
+    }
+
+    // Grab the player at the centre, where start() puts it, and drag it down; the finger stays down
+    private void drag() {
+        long downTime = SystemClock.uptimeMillis();
+        MotionEvent down = MotionEvent.obtain(downTime, downTime, MotionEvent.ACTION_DOWN, SCREEN_WIDTH / 2f, SCREEN_HEIGHT / 2f, 0);
+        MotionEvent move = MotionEvent.obtain(downTime, downTime + 16, MotionEvent.ACTION_MOVE, SCREEN_WIDTH / 2f, SCREEN_HEIGHT * 0.8f, 0);
+        mPanel.onTouchEvent(down);
+        mPanel.onTouchEvent(move);
+        down.recycle();
+        move.recycle();
+    }
+
+    // One simulation step followed by one drawn frame, as the two game threads run them
+    private void runTick() {
+        float deltaTime = mPanel.getClock().advance(STEP_NANOS / 1e9f);
+        mPanel.awaitCollisions();
+        mPanel.update(deltaTime);
+        mPanel.dispatchCollisions(deltaTime);
+        mPanel.publishFrame(mTimeNanos, STEP_NANOS);
+        mTimeNanos += STEP_NANOS;
+        mPanel.render(mCanvas, mPanel.acquireFrame(), 0.5f);
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.falcon_strike_app;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Streams a generated map many screens tall through MapStreamer while scrolling it twice from end
+ * to end, and checks that the chunk bitmaps stay a small fixed set and that each chunk is decoded
+ * about once per pass rather than once per frame.
+ */
+@RunWith(AndroidJUnit4.class)
+public class MapStreamerTest {
+    private static final String TAG = "MapStreamerTest";
+    private static final int SCREEN_WIDTH = 1080;
+    private static final int SCREEN_HEIGHT = 1920;
+    private static final int MAP_WIDTH = 270;  // Drawn four times as wide
+    private static final int CHUNK_HEIGHT = 256;  // As in MapStreamer
+    private static final int CHUNKS = 32;
+    private static final int PASSES = 2;
+    private static final float SCROLL_PER_FRAME = 128f;
+    private static final long FRAME_MILLIS = 4;
+
+    @Test
+    public void decodesStayBoundedWhileScrolling() throws Exception {
+        MapStreamer map = new MapStreamer(new ByteArrayInputStream(createMap()), SCREEN_WIDTH, SCREEN_HEIGHT);
+        int slots = map.getSlotCount();
+        assertTrue("slots " + slots, slots < CHUNKS);
+        map.start();
+
+        Canvas canvas = new Canvas(Bitmap.createBitmap(SCREEN_WIDTH, SCREEN_HEIGHT, Bitmap.Config.RGB_565));
+        int frames = (int) (PASSES * map.getScrollPeriod() / SCROLL_PER_FRAME);
+        for (int frame = 0; frame < frames; frame++) {
+            map.draw(canvas, frame * SCROLL_PER_FRAME, SCREEN_WIDTH);
+            SystemClock.sleep(FRAME_MILLIS);
+        }
+        map.shutDown();
+        map.join();
+
+        int decodes = map.getDecodeCount();
+        Log.i(TAG, frames + " frames, " + slots + " slots, " + decodes + " chunk decodes for " + CHUNKS + " chunks");
+        assertEquals("slots", slots, map.getSlotCount());
+        assertTrue("every chunk streamed, decodes " + decodes, decodes >= CHUNKS);
+        assertTrue("decodes " + decodes, decodes <= PASSES * CHUNKS + slots);
+    }
+
+    // A PNG of CHUNKS chunks, each a band of its own colour
+    private static byte[] createMap() {
+        Bitmap bitmap = Bitmap.createBitmap(MAP_WIDTH, CHUNKS * CHUNK_HEIGHT, Bitmap.Config.RGB_565);
+        Canvas canvas = new Canvas(bitmap);
+        Paint paint = new Paint();
+        for (int chunk = 0; chunk < CHUNKS; chunk++) {
+            paint.setColor(0xff000000 | (chunk * 0x070b0d));
+            canvas.drawRect(0, chunk * CHUNK_HEIGHT, MAP_WIDTH, (chunk + 1) * CHUNK_HEIGHT, paint);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        bitmap.compress(Bitmap.CompressFormat.PNG, 100, out);
+        bitmap.recycle();
+        return out.toByteArray();
+    }
+}
@@ -1,105 +1,86 @@
 package com.example.falcon_strike_app;
 
 import android.graphics.Bitmap;
-import android.graphics.Canvas;
-import android.graphics.Rect;
-import android.graphics.RectF;
-import android.os.Handler;
-import android.os.Looper;
-
-import java.util.ArrayList;
-import java.util.List;
 
 public class AnimatedSprite extends Sprite {
 
     protected final int mNumFrames;  // Number of frames in the animation
     protected final long mFPS;  // Frame rate of the animation
-    protected final List<Rect> mFrames;  // Stores the boundaries of the animation frames
+    protected final SpriteSheet mSheet;  // Shared frame rectangles of the animation
     protected int mCurFrame;  // Current frame
     protected long mNextFrameTime;  // Time of the next frame
 
     private boolean isVisible = true;
-    private Handler mHandler = new Handler(Looper.getMainLooper());
+    private TimerWheel mTimers;  // Wheel driving the current blink, set by startBlinking()
+    private int mBlinkTimer = TimerWheel.NO_TIMER;
+    private long mBlinkEndTime;  // Wheel time at which blinking stops
+    private long mBlinkInterval;
+    private final Runnable mBlinkTask = new Runnable() {
+        @Override
+        public void run() {
+            isVisible = !isVisible;
+            if (mTimers.now() < mBlinkEndTime) {
+                mBlinkTimer = mTimers.schedule(this, mBlinkInterval);
+            } else {
+                isVisible = true;
+                mBlinkTimer = TimerWheel.NO_TIMER;
+            }
+        }
+    };
 
     protected SpriteType mType;
+    protected CollisionMask mCollisionMask;  // Shared opacity masks of the sheet, or null to collide on bounds only
 
     public AnimatedSprite(Bitmap bitmap, int numFrames, int framesPerSecond, SpriteType type) {
-        super(bitmap);
-        mNumFrames = numFrames;
+        this(new SpriteSheet(bitmap, numFrames), framesPerSecond, type);
+    }
+
+    public AnimatedSprite(SpriteSheet sheet, int framesPerSecond, SpriteType type) {
+        super(sheet.getFrameWidth(), sheet.getFrameHeight());  // Bounds cover one frame, not the whole sheet
+        mSheet = sheet;
+        mNumFrames = sheet.getNumFrames();
         mFPS = (long) (1 / (double) framesPerSecond * 1000);
-        mFrames = new ArrayList<>();
         mType = type;
-        int bitmapWidth = mBitmap.getWidth() / mNumFrames;
-        int bitmapHeight = mBitmap.getHeight();
-
-        for (int i = 0; i < mNumFrames; i++) {
-            mFrames.add(new Rect(
-                    i * bitmapWidth,
-                    0,
-                    (i + 1) * bitmapWidth,
-                    bitmapHeight
-            ));
-        }
+        mCollisionMask = sheet.getCollisionMask();
     }
 
     public SpriteType getType() {
         return mType;
     }
 
-    public void handleAnimation() {
-        if (mNextFrameTime > System.currentTimeMillis())
-            return;
-
-        mCurFrame = (mCurFrame + 1) % mNumFrames;
-        mNextFrameTime = System.currentTimeMillis() + mFPS;
+    public int getCurrentFrame() {
+        return mCurFrame;
     }
 
-    @Override
-    public void render(Canvas canvas) {
-        if (!isVisible) {
-            return;
-        }
-        Rect frame = mFrames.get(mCurFrame);
-        canvas.drawBitmap(mBitmap, frame, getBounds(), mPaint);
+    public boolean isVisible() {
+        return isVisible;
     }
 
-    @Override
-    public RectF getBounds() {
-        int bitmapWidth = mBitmap.getWidth() / mNumFrames;
-        int bitmapHeight = mBitmap.getHeight();
-
-        RectF bounds = new RectF(
-                mX - bitmapWidth / 2f,
-                mY - bitmapHeight / 2f,
-                mX + bitmapWidth / 2f,
-                mY + bitmapHeight / 2f);
+    public CollisionMask getCollisionMask() {
+        return mCollisionMask;
+    }
 
-        if (mScale != 1) {
-            float diffHorizontal = (bounds.right - bounds.left) * (mScale - 1f);
-            float diffVertical = (bounds.bottom - bounds.top) * (mScale - 1f);
+    public void setCollisionMask(CollisionMask collisionMask) {
+        mCollisionMask = collisionMask;
+    }
 
-            bounds.top -= diffVertical / 2f;
-            bounds.left -= diffHorizontal / 2f;
-            bounds.right += diffHorizontal / 2f;
-            bounds.bottom += diffVertical / 2f;
-        }
+    // Advance the animation; now is the game time in milliseconds, see GameClock
+    public void handleAnimation(long now) {
+        if (mNextFrameTime > now)
+            return;
 
-        return bounds;
+        mCurFrame = (mCurFrame + 1) % mNumFrames;
+        mNextFrameTime = now + mFPS;
     }
 
-    public void startBlinking(long blinkDuration, long blinkInterval) {
-        mHandler.postDelayed(new Runnable() {
-            long endTime = System.currentTimeMillis() + blinkDuration;
-
-            @Override
-            public void run() {
-                isVisible = !isVisible;
-                if (System.currentTimeMillis() < endTime) {
-                    mHandler.postDelayed(this, blinkInterval);
-                } else {
-                    isVisible = true;
-                }
-            }
-        }, blinkInterval);
+    // Blink for blinkDuration milliseconds of game time, restarting any blink in progress
+    public void startBlinking(TimerWheel timers, long blinkDuration, long blinkInterval) {
+        if (mTimers != null) {
+            mTimers.cancel(mBlinkTimer);
+        }
+        mTimers = timers;
+        mBlinkEndTime = timers.now() + blinkDuration;
+        mBlinkInterval = blinkInterval;
+        mBlinkTimer = timers.schedule(mBlinkTask, blinkInterval);
     }
 }
\ No newline at end of file
@@ -0,0 +1,257 @@
+package com.example.falcon_strike_app;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.graphics.Bitmap;
+import android.media.AudioAttributes;
+import android.media.SoundPool;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.example.falconstrikeapp.R;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Process-wide cache of the game's bitmaps, sprite sheets, texture atlas and sounds, decoded in
+// parallel by preload() and shared by every game through acquire() and release().
+public class AssetCache implements ComponentCallbacks2 {
+    private static final String TAG = "AssetCache";
+    private static final int ATLAS_PAGE_SIZE = 2048;  // Largest atlas bitmap, safe on every device
+    private static final long BITMAP_BUDGET = 24L * 1024 * 1024;  // Default bitmap memory budget, see BitmapDecoder
+    private static final GamePanel.BitmapType[] BITMAP_TYPES = GamePanel.BitmapType.values();
+
+    private static AssetCache sInstance;
+
+    private final Context mContext;  // Application context, safe to keep for the process lifetime
+    private final ExecutorService mExecutor;
+    private final BitmapDecoder mDecoder;
+
+    private final Object mLock = new Object();  // Guards everything below
+    private Future<?>[] mLoads;  // One decode per bitmap type, null until preload()
+    private int mGeneration;  // Bumped on eviction, so decodes started before it are discarded
+    private final Bitmap[] mBitmaps = new Bitmap[BITMAP_TYPES.length];
+    private final SpriteSheet[] mSheets = new SpriteSheet[BITMAP_TYPES.length];  // Null for backgrounds
+    private TextureAtlas mAtlas;
+    private SoundPool mSoundPool;
+    private int mExplosionSoundId;
+    private int mRefCount;
+
+    private AssetCache(Context context) {
+        mContext = context.getApplicationContext();
+        mDecoder = new BitmapDecoder(mContext.getResources(), BITMAP_BUDGET);
+        int threads = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+        mExecutor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, TAG);
+            thread.setDaemon(true);
+            return thread;
+        });
+        mContext.registerComponentCallbacks(this);
+    }
+
+    public static synchronized AssetCache getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new AssetCache(context);
+        }
+        return sInstance;
+    }
+
+    // Start loading everything in the background, unless it is already loaded or loading
+    public void preload() {
+        synchronized (mLock) {
+            if (mLoads != null) return;
+            mLoads = new Future<?>[BITMAP_TYPES.length];
+            int generation = mGeneration;
+            for (GamePanel.BitmapType type : BITMAP_TYPES) {
+                mLoads[type.ordinal()] = mExecutor.submit(() -> load(type, generation));
+            }
+
+            AudioAttributes audioAttributes = new AudioAttributes.Builder().setUsage(AudioAttributes.USAGE_GAME).setContentType(AudioAttributes.CONTENT_TYPE_SONIFICATION).build();
+            mSoundPool = new SoundPool.Builder().setAudioAttributes(audioAttributes).setMaxStreams(2).build();
+            mExplosionSoundId = mSoundPool.load(mContext, R.raw.explosion, 1);  // SoundPool loads asynchronously itself
+        }
+    }
+
+    // Take a reference, waiting for any asset still loading. Pair with release().
+    public AssetCache acquire() {
+        Future<?>[] loads;
+        synchronized (mLock) {
+            preload();
+            mRefCount++;
+            loads = mLoads;
+        }
+        try {
+            for (Future<?> load : loads) {
+                load.get();
+            }
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while loading assets", ie);
+        } catch (ExecutionException ee) {
+            throw new IllegalStateException("Unable to load assets", ee.getCause());
+        }
+        synchronized (mLock) {
+            if (mAtlas == null) {
+                mAtlas = new TextureAtlas(mSheets, ATLAS_PAGE_SIZE);
+                for (int page = 0; page < mAtlas.getPageCount(); page++) {
+                    mDecoder.track(mAtlas.getPage(page));
+                }
+                // The pages hold every frame now and the masks are built, so free the sheet bitmaps
+                for (int i = 0; i < mSheets.length; i++) {
+                    if (mSheets[i] == null) continue;
+                    mSheets[i].dropBitmap();
+                    mDecoder.recycle(mBitmaps[i]);
+                    mBitmaps[i] = null;
+                }
+                Log.i(TAG, mDecoder.toString());
+            }
+        }
+        return this;
+    }
+
+    public void release() {
+        synchronized (mLock) {
+            if (mRefCount == 0) {
+                throw new IllegalStateException("release() without acquire()");
+            }
+            mRefCount--;
+        }
+    }
+
+    private void load(GamePanel.BitmapType type, int generation) {
+        boolean sprite = type.ordinal() < GamePanel.BitmapType.BACKGROUND_WATER.ordinal();
+        Bitmap bitmap = mDecoder.decode(resourceOf(type), sprite ? BitmapDecoder.AssetClass.SPRITE : BitmapDecoder.AssetClass.TILE,
+                displayScale(type, mContext.getResources().getDisplayMetrics().density));
+        SpriteSheet sheet = null;
+        if (sprite) {
+            // Build frame tables and pixel collision masks once; every sprite on the same bitmap shares them
+            sheet = new SpriteSheet(bitmap, 3);
+            if (type != GamePanel.BitmapType.EXPLOSION) {
+                sheet.setCollisionMask(new CollisionMask(bitmap, 3));
+            }
+        }
+        synchronized (mLock) {
+            if (generation != mGeneration) {  // Evicted while decoding
+                mDecoder.recycle(bitmap);
+                return;
+            }
+            mBitmaps[type.ordinal()] = bitmap;
+            mSheets[type.ordinal()] = sheet;
+        }
+    }
+
+    // Display pixels per resource pixel. Resources are mdpi, so everything scales with the density;
+    // the player is drawn bigger again, by half the density, as it always has been.
+    private static float displayScale(GamePanel.BitmapType type, float density) {
+        return type == GamePanel.BitmapType.PLAYER ? density * density / 2 : density;
+    }
+
+    private static int resourceOf(GamePanel.BitmapType type) {
+        switch (type) {
+            case PLAYER:
+                return R.drawable.player;
+            case ENEMY_BLUE:
+                return R.drawable.enemy_blue;
+            case ENEMY_GREEN:
+                return R.drawable.enemy_green;
+            case ENEMY_RED:
+                return R.drawable.enemy_red;
+            case BULLET:
+                return R.drawable.bullet;
+            case EXPLOSION:
+                return R.drawable.explosion;
+            case BACKGROUND_WATER:
+                return R.drawable.water;
+            case BACKGROUND_DESERT:
+                return R.drawable.desert;
+            case BACKGROUND_BASE:
+            default:
+                return R.drawable.base;
+        }
+    }
+
+    // Decoder shared by everything that loads bitmaps, so they all count against one budget
+    public BitmapDecoder getDecoder() {
+        return mDecoder;
+    }
+
+    // Backgrounds only; sprite bitmaps are freed once acquire() has packed them into the atlas
+    public Bitmap getBitmap(GamePanel.BitmapType type) {
+        synchronized (mLock) {
+            return mBitmaps[type.ordinal()];
+        }
+    }
+
+    // Sheets indexed by BitmapType ordinal, null for backgrounds. Shared, do not modify.
+    public SpriteSheet[] getSheets() {
+        synchronized (mLock) {
+            return mSheets.clone();
+        }
+    }
+
+    public TextureAtlas getAtlas() {
+        synchronized (mLock) {
+            return mAtlas;
+        }
+    }
+
+    public SoundPool getSoundPool() {
+        synchronized (mLock) {
+            return mSoundPool;
+        }
+    }
+
+    public int getExplosionSoundId() {
+        synchronized (mLock) {
+            return mExplosionSoundId;
+        }
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        if (level >= TRIM_MEMORY_RUNNING_LOW) {
+            evictIfUnused();
+        }
+    }
+
+    @Override
+    public void onLowMemory() {
+        evictIfUnused();
+    }
+
+    @Override
+    public void onConfigurationChanged(@NonNull Configuration newConfig) {
+    }
+
+    // Drop everything unless a game holds a reference; the next preload() or acquire() loads it again
+    private void evictIfUnused() {
+        synchronized (mLock) {
+            if (mRefCount > 0 || mLoads == null) return;  // A game is using them, or nothing is loaded
+            Log.d(TAG, "Releasing cached assets");
+            for (Future<?> load : mLoads) {
+                load.cancel(false);
+            }
+            mLoads = null;
+            mGeneration++;
+            for (int i = 0; i < mBitmaps.length; i++) {
+                if (mBitmaps[i] != null) {
+                    mDecoder.recycle(mBitmaps[i]);
+                }
+                mBitmaps[i] = null;
+                mSheets[i] = null;
+            }
+            if (mAtlas != null) {
+                for (int page = 0; page < mAtlas.getPageCount(); page++) {
+                    mDecoder.recycle(mAtlas.getPage(page));
+                }
+                mAtlas = null;
+            }
+            mSoundPool.release();
+            mSoundPool = null;
+        }
+    }
+}
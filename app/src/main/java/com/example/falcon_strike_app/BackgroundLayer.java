@@ -0,0 +1,133 @@
+package com.example.falcon_strike_app;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+
+// Scrolling level backdrop: one blit of a tile-aligned strip, or a streamed map for levels that have one.
+public class BackgroundLayer {
+    private final Bitmap[] mLevelTiles;  // Tile of each level, null where the level has no backdrop
+    private final MapStreamer[] mLevelMaps;  // Streamed map of each level, drawn instead of its tile
+
+    private Bitmap mStrip;  // Cached strip, or null before the first draw
+    private Bitmap mStripTile;  // Tile the strip was built from
+    private int mStripScreenWidth, mStripScreenHeight;  // Surface size the strip was built for
+    private int mRebuilds;  // Times the strip was built, for profiling
+
+    private boolean mFlat;  // Fill with each tile's average colour instead of scrolling, the cheapest path
+    private Bitmap mFlatTile;  // Tile mFlatColor was computed from
+    private int mFlatColor;
+
+    // levelTiles[level] is the tile of that level; levels past the end use the last tile
+    public BackgroundLayer(Bitmap[] levelTiles) {
+        mLevelTiles = levelTiles;
+        mLevelMaps = new MapStreamer[levelTiles.length];
+    }
+
+    // Use a streamed map for a level instead of its tile, or the tile again with null; the previous map
+    // of the level is shut down. The map table is not synchronized: call this only while no thread draws
+    // or steps the game, as GamePanel.start() does before it starts them and release() after they end.
+    public void setLevelMap(int level, MapStreamer map) {
+        int index = Math.max(0, Math.min(level, mLevelMaps.length - 1));
+        if (mLevelMaps[index] != null) {
+            mLevelMaps[index].shutDown();
+        }
+        mLevelMaps[index] = map;
+    }
+
+    private MapStreamer getMap(int level) {
+        return mLevelMaps[Math.max(0, Math.min(level, mLevelMaps.length - 1))];
+    }
+
+    public Bitmap getTile(int level) {
+        return mLevelTiles[Math.max(0, Math.min(level, mLevelTiles.length - 1))];
+    }
+
+    // Distance after which the scroll position of a level repeats, 0 if the level has no backdrop; simulation thread
+    public int getScrollPeriod(int level) {
+        MapStreamer map = getMap(level);
+        if (map != null) return map.getScrollPeriod();
+        Bitmap tile = getTile(level);
+        return tile != null ? tile.getHeight() : 0;
+    }
+
+    public void setFlat(boolean flat) {
+        mFlat = flat;
+    }
+
+    // Render thread only. The strip is rebuilt only when the level's tile or the surface size changes.
+    public void draw(Canvas canvas, int level, float scrollY, int screenWidth, int screenHeight) {
+        if (mFlat) {
+            drawFlat(canvas, level);
+            return;
+        }
+        MapStreamer map = getMap(level);
+        if (map != null) {
+            map.draw(canvas, scrollY, screenWidth);
+            return;
+        }
+        Bitmap tile = getTile(level);
+        if (tile == null) {
+            canvas.drawColor(Color.BLACK);  // Nothing to scroll, but the previous frame must still be covered
+            return;
+        }
+        if (tile != mStripTile || screenWidth != mStripScreenWidth || screenHeight != mStripScreenHeight) {
+            rebuild(tile, screenWidth, screenHeight);
+        }
+        float top = scrollY % tile.getHeight();
+        if (top < 0) {
+            top += tile.getHeight();
+        }
+        canvas.drawBitmap(mStrip, 0, top - tile.getHeight(), null);
+    }
+
+    public int getRebuildCount() {
+        return mRebuilds;
+    }
+
+    // Stop every map decoder thread
+    public void release() {
+        for (int level = 0; level < mLevelMaps.length; level++) {
+            setLevelMap(level, null);
+        }
+    }
+
+    // Streamed maps have no single tile, so their levels are filled black like levels without a backdrop
+    private void drawFlat(Canvas canvas, int level) {
+        Bitmap tile = getMap(level) == null ? getTile(level) : null;
+        if (tile == null) {
+            canvas.drawColor(Color.BLACK);
+            return;
+        }
+        if (tile != mFlatTile) {
+            Bitmap pixel = Bitmap.createScaledBitmap(tile, 1, 1, true);  // Filtered down to its average colour
+            mFlatColor = pixel.getPixel(0, 0) | 0xff000000;
+            pixel.recycle();
+            mFlatTile = tile;
+        }
+        canvas.drawColor(mFlatColor);
+    }
+
+    // The tile repeated across the screen and down one tile more, so any scroll is a shift of less than a tile
+    private void rebuild(Bitmap tile, int screenWidth, int screenHeight) {
+        int rows = (screenHeight + tile.getHeight() - 1) / tile.getHeight() + 1;  // One spare row to scroll into
+        int height = rows * tile.getHeight();
+        if (mStrip == null || mStrip.getWidth() != screenWidth || mStrip.getHeight() != height) {
+            if (mStrip != null) {
+                mStrip.recycle();
+            }
+            mStrip = Bitmap.createBitmap(screenWidth, height, Bitmap.Config.RGB_565);
+        }
+        Canvas canvas = new Canvas(mStrip);
+        canvas.setDensity(Bitmap.DENSITY_NONE);  // Copy tile pixels one to one, whatever density the tile carries
+        for (int y = 0; y < height; y += tile.getHeight()) {
+            for (int x = 0; x < screenWidth; x += tile.getWidth()) {
+                canvas.drawBitmap(tile, x, y, null);
+            }
+        }
+        mStripTile = tile;
+        mStripScreenWidth = screenWidth;
+        mStripScreenHeight = screenHeight;
+        mRebuilds++;
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.falcon_strike_app;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.util.Log;
+
+import androidx.annotation.DrawableRes;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Decodes drawables straight to the size they are drawn at, and counts the bitmap memory it hands out
+// against a budget.
+public class BitmapDecoder {
+    private static final String TAG = "BitmapDecoder";
+
+    public enum AssetClass {
+        SPRITE(Bitmap.Config.ARGB_8888),  // Sprite sheets, need alpha
+        TILE(Bitmap.Config.RGB_565),  // Opaque backdrop tiles
+        IMAGE(Bitmap.Config.RGB_565);  // Opaque full-screen artwork
+
+        final Bitmap.Config mConfig;
+
+        AssetClass(Bitmap.Config config) {
+            mConfig = config;
+        }
+    }
+
+    private final Resources mResources;
+    private volatile long mBudget;  // Bytes the tracked bitmaps should stay under
+    private final AtomicLong mBytes = new AtomicLong();  // Bytes of the bitmaps currently tracked, from every loader thread
+
+    public BitmapDecoder(Resources resources, long budget) {
+        mResources = resources;
+        mBudget = budget;
+    }
+
+    // Decode at scale times the resource's pixel size
+    public Bitmap decode(@DrawableRes int resId, AssetClass assetClass, float scale) {
+        BitmapFactory.Options options = bounds(resId);
+        return decode(resId, assetClass, options, Math.max(1, Math.round(options.outWidth * scale)));
+    }
+
+    // Decode scaled to the given width, keeping the aspect ratio
+    public Bitmap decodeToWidth(@DrawableRes int resId, AssetClass assetClass, int width) {
+        return decode(resId, assetClass, bounds(resId), width);
+    }
+
+    private BitmapFactory.Options bounds(int resId) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        options.inScaled = false;  // Resource pixels, not density-scaled ones
+        BitmapFactory.decodeResource(mResources, resId, options);
+        if (options.outWidth <= 0) {
+            throw new IllegalArgumentException("Not a bitmap resource: " + resId);
+        }
+        return options;
+    }
+
+    // Subsample by the largest power of two that stays above width (inSampleSize) and let the decoder scale
+    // the rest of the way (inDensity/inTargetDensity), so no full-size copy is made
+    private Bitmap decode(int resId, AssetClass assetClass, BitmapFactory.Options options, int width) {
+        int sampleSize = 1;
+        while (options.outWidth / (sampleSize * 2) >= width) {
+            sampleSize *= 2;
+        }
+        int sampledWidth = options.outWidth / sampleSize;
+
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = sampleSize;
+        options.inPreferredConfig = assetClass.mConfig;
+        options.inScaled = sampledWidth != width;
+        options.inDensity = sampledWidth;  // The decoder scales by inTargetDensity / inDensity
+        options.inTargetDensity = width;
+        Bitmap bitmap = BitmapFactory.decodeResource(mResources, resId, options);
+        if (bitmap == null) {
+            throw new IllegalStateException("Unable to decode resource " + resId);
+        }
+        bitmap.setDensity(Bitmap.DENSITY_NONE);  // The decoder left inTargetDensity, the pixel width, as its density
+        track(bitmap);
+        return bitmap;
+    }
+
+    // Count a bitmap made elsewhere, such as an atlas page, against the budget
+    public void track(Bitmap bitmap) {
+        long bytes = mBytes.addAndGet(bitmap.getAllocationByteCount());
+        if (bytes > mBudget) {
+            Log.w(TAG, "Bitmaps use " + bytes / 1024 + " KB, over the " + mBudget / 1024 + " KB budget");
+        }
+    }
+
+    // Stop counting a bitmap and free its pixels
+    public void recycle(Bitmap bitmap) {
+        mBytes.addAndGet(-bitmap.getAllocationByteCount());
+        bitmap.recycle();
+    }
+
+    public long getBytes() {
+        return mBytes.get();
+    }
+
+    public long getBudget() {
+        return mBudget;
+    }
+
+    public void setBudget(long budget) {
+        mBudget = budget;
+    }
+
+    @Override
+    public String toString() {
+        return "Bitmaps: " + mBytes.get() / 1024 + " KB of " + mBudget / 1024 + " KB budget";
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.falcon_strike_app;
+
+// Finds candidate pairs whose bounding boxes overlap.
+// Implementations keep their own buffers and report each overlapping pair exactly once.
+public interface Broadphase {
+
+    // Find all overlapping pairs among the first count boxes. Returns the number of pairs.
+    int findPairs(float[] left, float[] top, float[] right, float[] bottom, int count);
+
+    // Pairs from the last findPairs() call, stored as [a0, b0, a1, b1, ...]
+    int[] getPairs();
+
+    int getPairCount();
+}
@@ -0,0 +1,117 @@
+package com.example.falcon_strike_app;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Bounded single-producer/single-consumer queue of collision events from CollisionThread to the
+// simulation thread. An event is one long: the hitter's handle (NO_HANDLE for the player) and the enemy's.
+public class CollisionEventRing {
+    private final long[] mEvents;
+    private final int mMask;
+
+    private final AtomicLong mHead = new AtomicLong();  // Next event to read, advanced by the consumer
+    private final AtomicLong mTail = new AtomicLong();  // Next event to write, advanced by the producer
+    private long mCachedHead;  // Producer's last view of mHead, refreshed only when the ring looks full
+
+    // Per-drain de-duplication, indexed by entity slot: an entity consumed by an earlier event of the same drain
+    private final int[] mConsumedHandle;
+    private final int[] mConsumedDrain;
+    private int mDrain;
+
+    // Metrics, each written by one thread only
+    private volatile long mOffered;  // Producer
+    private volatile long mOverflows;  // Producer
+    private volatile long mDelivered;  // Consumer
+    private volatile long mConsumed;  // Consumer
+    private volatile long mDuplicates;  // Consumer
+
+    // entityCapacity is the number of entity slots reserved with EntityStore.prewarm()
+    public CollisionEventRing(int capacity, int entityCapacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        }
+        mEvents = new long[capacity];
+        mMask = capacity - 1;
+        mConsumedHandle = new int[entityCapacity];
+        mConsumedDrain = new int[entityCapacity];
+    }
+
+    // Producer side, collision thread. Returns false, and counts an overflow, if the ring is full.
+    public boolean offer(int sprite, int enemy) {
+        long tail = mTail.get();
+        if (tail - mCachedHead == mEvents.length) {
+            mCachedHead = mHead.get();
+            if (tail - mCachedHead == mEvents.length) {
+                mOverflows++;
+                return false;
+            }
+        }
+        mEvents[(int) tail & mMask] = ((long) sprite << 32) | (enemy & 0xffffffffL);
+        mTail.lazySet(tail + 1);  // Publishes the event written above
+        mOffered++;
+        return true;
+    }
+
+    // Consumer side, simulation thread. Reports every pending event to the listener, skipping events whose bullet or
+    // enemy was already consumed by an earlier event of this drain. Both sides of an event count as
+    // consumed only if the listener says so. Returns the number consumed.
+    public int drain(CollisionListener listener) {
+        long head = mHead.get();
+        long tail = mTail.get();
+        mDrain++;
+        int delivered = 0;
+        int consumed = 0;
+        for (; head < tail; head++) {
+            long event = mEvents[(int) head & mMask];
+            int sprite = (int) (event >> 32);
+            int enemy = (int) event;
+            if (isConsumed(sprite) || isConsumed(enemy)) {
+                mDuplicates++;
+                continue;
+            }
+            delivered++;
+            boolean hit = sprite == EntityStore.NO_HANDLE
+                    ? listener.onPlayerEnemyCollision(enemy)
+                    : listener.onBulletEnemyCollision(sprite, enemy);
+            if (hit) {
+                markConsumed(sprite);
+                markConsumed(enemy);
+                consumed++;
+            }
+        }
+        mHead.lazySet(tail);
+        mDelivered += delivered;
+        mConsumed += consumed;
+        return consumed;
+    }
+
+    // Whether a handle was consumed earlier in this drain. The player is never de-duplicated, and slots
+    // past the reserved capacity, only used once the store has outgrown it, are not tracked; the
+    // listener still rejects entities that are already dead.
+    private boolean isConsumed(int handle) {
+        if (handle == EntityStore.NO_HANDLE) return false;
+        int slot = EntityStore.slotOf(handle);
+        return slot < mConsumedHandle.length && mConsumedDrain[slot] == mDrain && mConsumedHandle[slot] == handle;
+    }
+
+    private void markConsumed(int handle) {
+        if (handle == EntityStore.NO_HANDLE) return;
+        int slot = EntityStore.slotOf(handle);
+        if (slot >= mConsumedHandle.length) return;
+        mConsumedDrain[slot] = mDrain;
+        mConsumedHandle[slot] = handle;
+    }
+
+    public long getOfferedCount() {
+        return mOffered;
+    }
+
+    public long getOverflowCount() {
+        return mOverflows;
+    }
+
+    @Override
+    public String toString() {
+        return "CollisionEventRing: capacity " + mEvents.length + ", offered " + mOffered + ", delivered " + mDelivered
+                + ", consumed " + mConsumed + ", duplicates " + mDuplicates + ", overflows " + mOverflows;
+    }
+}
@@ -1,7 +1,8 @@
 package com.example.falcon_strike_app;
 
+// Collision callbacks on EntityStore handles, delivered by CollisionEventRing.drain(). Each returns true
+// if the hit took effect; an ignored hit leaves its entities free for the later events of the drain.
 public interface CollisionListener {
-    void onPlayerEnemyCollision(AnimatedSprite player, AnimatedSprite enemy);
-    void onBulletEnemyCollision(AnimatedSprite bullet, AnimatedSprite enemy);
+    boolean onPlayerEnemyCollision(int enemy);
+    boolean onBulletEnemyCollision(int bullet, int enemy);
 }
-
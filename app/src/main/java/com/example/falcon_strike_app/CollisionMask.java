@@ -0,0 +1,135 @@
+package com.example.falcon_strike_app;
+
+import android.graphics.Bitmap;
+
+// Per-frame opacity bit masks of a sprite sheet, used as a pixel-accurate narrowphase. Each row of a
+// frame is packed into longs (bit 0 is the leftmost pixel), so a test is an AND of shifted words.
+public class CollisionMask {
+    private static final int ALPHA_THRESHOLD = 64;  // Pixels with less alpha do not collide
+    private static final int MAX_SCALES = 4;  // Scaled copies kept per mask
+
+    private final int mFrames;  // Number of animation frames
+    private final int mWidth, mHeight;  // Size of one frame in mask pixels
+    private final int mWordsPerRow;
+    private final long[] mBits;  // [frame][row][word], flattened
+    private final float mScale;  // Scale of this mask relative to the bitmap
+
+    private final CollisionMask mSource;  // Unscaled mask this one was derived from, or null
+    private final CollisionMask[] mScaled;  // Cache of scaled copies, only used on the source mask
+    private int mScaledCount;
+
+    // Build the mask of a horizontal sprite sheet with numFrames equally wide frames
+    public CollisionMask(Bitmap bitmap, int numFrames) {
+        mFrames = numFrames;
+        mWidth = bitmap.getWidth() / numFrames;
+        mHeight = bitmap.getHeight();
+        mWordsPerRow = (mWidth + 63) >>> 6;
+        mBits = new long[mFrames * mHeight * mWordsPerRow];
+        mScale = 1f;
+        mSource = null;
+        mScaled = new CollisionMask[MAX_SCALES];
+
+        int[] pixels = new int[bitmap.getWidth() * mHeight];
+        bitmap.getPixels(pixels, 0, bitmap.getWidth(), 0, 0, bitmap.getWidth(), mHeight);
+        for (int frame = 0; frame < mFrames; frame++) {
+            for (int y = 0; y < mHeight; y++) {
+                int rowBase = (frame * mHeight + y) * mWordsPerRow;
+                int pixelBase = y * bitmap.getWidth() + frame * mWidth;
+                for (int x = 0; x < mWidth; x++) {
+                    if ((pixels[pixelBase + x] >>> 24) >= ALPHA_THRESHOLD) {
+                        mBits[rowBase + (x >>> 6)] |= 1L << (x & 63);
+                    }
+                }
+            }
+        }
+    }
+
+    // Nearest-neighbour resample of source to the given scale
+    private CollisionMask(CollisionMask source, float scale) {
+        mFrames = source.mFrames;
+        mWidth = Math.max(1, Math.round(source.mWidth * scale));
+        mHeight = Math.max(1, Math.round(source.mHeight * scale));
+        mWordsPerRow = (mWidth + 63) >>> 6;
+        mBits = new long[mFrames * mHeight * mWordsPerRow];
+        mScale = scale;
+        mSource = source;
+        mScaled = null;
+
+        for (int frame = 0; frame < mFrames; frame++) {
+            for (int y = 0; y < mHeight; y++) {
+                int sourceY = Math.min(source.mHeight - 1, (int) (y / scale));
+                int sourceBase = (frame * source.mHeight + sourceY) * source.mWordsPerRow;
+                int rowBase = (frame * mHeight + y) * mWordsPerRow;
+                for (int x = 0; x < mWidth; x++) {
+                    int sourceX = Math.min(source.mWidth - 1, (int) (x / scale));
+                    if ((source.mBits[sourceBase + (sourceX >>> 6)] & (1L << (sourceX & 63))) != 0) {
+                        mBits[rowBase + (x >>> 6)] |= 1L << (x & 63);
+                    }
+                }
+            }
+        }
+    }
+
+    // Mask matching a sprite drawn at the given scale. Allocates only the first time a scale is seen.
+    public CollisionMask forScale(float scale) {
+        CollisionMask source = mSource != null ? mSource : this;
+        if (scale == 1f) return source;
+        synchronized (source.mScaled) {
+            for (int i = 0; i < source.mScaledCount; i++) {
+                if (source.mScaled[i].mScale == scale) return source.mScaled[i];
+            }
+            CollisionMask scaled = new CollisionMask(source, scale);
+            if (source.mScaledCount < MAX_SCALES) {
+                source.mScaled[source.mScaledCount++] = scaled;
+            }
+            return scaled;
+        }
+    }
+
+    // Whether frame a of maskA placed at (ax, ay) and frame b of maskB placed at (bx, by) share an opaque pixel.
+    // Positions are the top-left corners of the sprites in screen pixels.
+    public static boolean overlaps(CollisionMask maskA, int frameA, int ax, int ay,
+                                   CollisionMask maskB, int frameB, int bx, int by) {
+        int top = Math.max(ay, by);
+        int bottom = Math.min(ay + maskA.mHeight, by + maskB.mHeight);
+        int left = Math.max(ax, bx);
+        int right = Math.min(ax + maskA.mWidth, bx + maskB.mWidth);
+        if (top >= bottom || left >= right) return false;
+
+        int firstWord = (left - ax) >>> 6;
+        int lastWord = (right - ax - 1) >>> 6;
+        int offset = ax - bx;  // Column in b of column 0 in a
+        for (int y = top; y < bottom; y++) {
+            int rowA = ((frameA % maskA.mFrames) * maskA.mHeight + y - ay) * maskA.mWordsPerRow;
+            int rowB = ((frameB % maskB.mFrames) * maskB.mHeight + y - by) * maskB.mWordsPerRow;
+            for (int word = firstWord; word <= lastWord; word++) {
+                long bits = maskA.mBits[rowA + word];
+                if (bits != 0 && (bits & maskB.extract(rowB, (word << 6) + offset)) != 0) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // 64 bits of a row starting at column, which may be negative or past the end; outside columns read as 0
+    private long extract(int rowBase, int column) {
+        if (column <= -64 || column >= mWidth) return 0L;
+        if (column < 0) return mBits[rowBase] << -column;
+        int word = column >>> 6;
+        int shift = column & 63;
+        long bits = mBits[rowBase + word] >>> shift;
+        if (shift != 0 && word + 1 < mWordsPerRow) {
+            bits |= mBits[rowBase + word + 1] << (64 - shift);
+        }
+        return bits;
+    }
+
+    public int getWidth() {
+        return mWidth;
+    }
+
+    public int getHeight() {
+        return mHeight;
+    }
+}
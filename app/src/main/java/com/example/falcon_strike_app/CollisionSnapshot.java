@@ -0,0 +1,156 @@
+package com.example.falcon_strike_app;
+
+import android.graphics.RectF;
+
+// Copy of everything a collision pass needs for one tick. Filled by the simulation thread after
+// update(), then left untouched until CollisionThread has finished the pass.
+public class CollisionSnapshot {
+    private static final int INITIAL_CAPACITY = 64;
+    private static final SpriteType[] SPRITE_TYPES = SpriteType.values();  // Cached, values() copies the array
+
+    int mCount;  // Number of sprites in the snapshot
+    int[] mHandles;  // Entity handle of each entry, EntityStore.NO_HANDLE for the player
+    SpriteType[] mTypes;  // Sprite type per entry
+    float[] mCenterX, mCenterY;  // Sprite centre per entry
+    float[] mLeft, mTop, mRight, mBottom;  // Sprite bounds per entry, at the end of the tick
+    float[] mMoveX, mMoveY;  // Distance moved during the tick
+    float[] mSweptLeft, mSweptTop, mSweptRight, mSweptBottom;  // Bounds covering the whole motion of the tick
+    CollisionMask[] mMasks;  // Opacity mask at the sprite's scale, or null
+    int[] mFrames;  // Animation frame shown this tick
+
+    public CollisionSnapshot() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    public void clear() {
+        mCount = 0;
+    }
+
+    // Add a stand-alone sprite such as the player.
+    // deltaTime is the length of the tick, used to recover where the sprite started.
+    public void add(AnimatedSprite sprite, float deltaTime) {
+        RectF bounds = sprite.getBounds();
+        CollisionMask mask = sprite.getCollisionMask();
+        add(EntityStore.NO_HANDLE, sprite.getType(), mask != null ? mask.forScale(sprite.getScale()) : null,
+                sprite.getCurrentFrame(), sprite.getX(), sprite.getY(),
+                bounds.left, bounds.top, bounds.right, bounds.bottom,
+                sprite.getXSpeed() * deltaTime, sprite.getYSpeed() * deltaTime);
+    }
+
+    // Add every live entity of the store
+    public void addEntities(EntityStore store, float deltaTime) {
+        for (int i = 0; i < store.size(); i++) {
+            if (!store.mAlive[i]) continue;
+            CollisionMask mask = store.getSheet(i).getCollisionMask();
+            if (mask == null) continue;  // Sheets without a mask, like explosions, never collide
+            float x = store.mX[i], y = store.mY[i];
+            float halfWidth = store.mHalfWidth[i], halfHeight = store.mHalfHeight[i];
+            add(store.mHandle[i], SPRITE_TYPES[store.mType[i]], mask.forScale(store.mScale[i]), store.mFrame[i], x, y,
+                    x - halfWidth, y - halfHeight, x + halfWidth, y + halfHeight,
+                    store.mXSpeed[i] * deltaTime, store.mYSpeed[i] * deltaTime);
+        }
+    }
+
+    private void add(int handle, SpriteType type, CollisionMask mask, int frame, float x, float y,
+                     float left, float top, float right, float bottom, float moveX, float moveY) {
+        if (mCount == mHandles.length) {
+            grow();
+        }
+        int i = mCount++;
+        mHandles[i] = handle;
+        mTypes[i] = type;
+        mMasks[i] = mask;
+        mFrames[i] = frame;
+        mCenterX[i] = x;
+        mCenterY[i] = y;
+        mLeft[i] = left;
+        mTop[i] = top;
+        mRight[i] = right;
+        mBottom[i] = bottom;
+        mMoveX[i] = moveX;
+        mMoveY[i] = moveY;
+        mSweptLeft[i] = moveX > 0 ? left - moveX : left;
+        mSweptRight[i] = moveX < 0 ? right - moveX : right;
+        mSweptTop[i] = moveY > 0 ? top - moveY : top;
+        mSweptBottom[i] = moveY < 0 ? bottom - moveY : bottom;
+    }
+
+    // Pixel test of entries a and b, moved back to where they were at the given fraction of the tick.
+    // Entries without a mask are treated as solid boxes.
+    boolean masksOverlap(int a, int b, float time) {
+        CollisionMask maskA = mMasks[a];
+        CollisionMask maskB = mMasks[b];
+        if (maskA == null || maskB == null) return true;
+        float rewind = 1f - time;
+        return CollisionMask.overlaps(
+                maskA, mFrames[a], Math.round(mLeft[a] - mMoveX[a] * rewind), Math.round(mTop[a] - mMoveY[a] * rewind),
+                maskB, mFrames[b], Math.round(mLeft[b] - mMoveX[b] * rewind), Math.round(mTop[b] - mMoveY[b] * rewind));
+    }
+
+    // Time of impact in [0, 1] of entries a and b over the tick, or Sprite.NO_HIT
+    float timeOfImpact(int a, int b) {
+        return Sprite.timeOfImpact(
+                mLeft[a], mTop[a], mRight[a], mBottom[a], mMoveX[a], mMoveY[a],
+                mLeft[b], mTop[b], mRight[b], mBottom[b], mMoveX[b], mMoveY[b]);
+    }
+
+    // Time in (0, 1] at which the boxes of entries a and b stop overlapping, or Sprite.NO_HIT
+    float timeOfSeparation(int a, int b) {
+        return Sprite.timeOfSeparation(
+                mLeft[a], mTop[a], mRight[a], mBottom[a], mMoveX[a], mMoveY[a],
+                mLeft[b], mTop[b], mRight[b], mBottom[b], mMoveX[b], mMoveY[b]);
+    }
+
+    public int size() {
+        return mCount;
+    }
+
+    private void allocate(int capacity) {
+        mHandles = new int[capacity];
+        mTypes = new SpriteType[capacity];
+        mMasks = new CollisionMask[capacity];
+        mFrames = new int[capacity];
+        mCenterX = new float[capacity];
+        mCenterY = new float[capacity];
+        mLeft = new float[capacity];
+        mTop = new float[capacity];
+        mRight = new float[capacity];
+        mBottom = new float[capacity];
+        mMoveX = new float[capacity];
+        mMoveY = new float[capacity];
+        mSweptLeft = new float[capacity];
+        mSweptTop = new float[capacity];
+        mSweptRight = new float[capacity];
+        mSweptBottom = new float[capacity];
+    }
+
+    // Capacity only ever grows, so a steady entity count never reallocates
+    private void grow() {
+        int count = mCount;
+        int[] handles = mHandles;
+        SpriteType[] types = mTypes;
+        CollisionMask[] masks = mMasks;
+        int[] frames = mFrames;
+        float[] centerX = mCenterX, centerY = mCenterY;
+        float[] left = mLeft, top = mTop, right = mRight, bottom = mBottom;
+        float[] moveX = mMoveX, moveY = mMoveY;
+        float[] sweptLeft = mSweptLeft, sweptTop = mSweptTop, sweptRight = mSweptRight, sweptBottom = mSweptBottom;
+        allocate(handles.length * 2);
+        System.arraycopy(handles, 0, mHandles, 0, count);
+        System.arraycopy(types, 0, mTypes, 0, count);
+        System.arraycopy(masks, 0, mMasks, 0, count);
+        System.arraycopy(frames, 0, mFrames, 0, count);
+        System.arraycopy(centerX, 0, mCenterX, 0, count);
+        System.arraycopy(centerY, 0, mCenterY, 0, count);
+        System.arraycopy(left, 0, mLeft, 0, count);
+        System.arraycopy(top, 0, mTop, 0, count);
+        System.arraycopy(right, 0, mRight, 0, count);
+        System.arraycopy(bottom, 0, mBottom, 0, count);
+        System.arraycopy(moveX, 0, mMoveX, 0, count);
+        System.arraycopy(moveY, 0, mMoveY, 0, count);
+        System.arraycopy(sweptLeft, 0, mSweptLeft, 0, count);
+        System.arraycopy(sweptTop, 0, mSweptTop, 0, count);
+        System.arraycopy(sweptRight, 0, mSweptRight, 0, count);
+        System.arraycopy(sweptBottom, 0, mSweptBottom, 0, count);
+    }
+}
@@ -1,84 +1,252 @@
 package com.example.falcon_strike_app;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
+import android.util.Log;
 
+// Runs one collision pass per simulation tick and queues the hits on a CollisionEventRing, which the
+// simulation thread drains at the start of the next update().
 public class CollisionThread extends Thread {
-    private final CollisionListener mCollisionListener;
 
-    private final CopyOnWriteArrayList<AnimatedSprite> mSprites;
+    public enum BroadphaseType {
+        GRID,
+        SWEEP_AND_PRUNE,
+    }
+
+    private static final String TAG = "CollisionThread";
+    private static final long STATS_INTERVAL_NANOS = 1000000000L;
+
+    private final CollisionEventRing mEvents;
 
-    private final List<AnimatedSprite>[][] mGrid;
     private final int mGridSize;
     private final int mScreenWidth;
     private final int mScreenHeight;
+    private Broadphase mBroadphase;  // Only touched by the collision thread
+    private volatile Broadphase mNextBroadphase;  // Strategy requested from another thread, swapped in before the next pass
+
+    private final Object mLock = new Object();  // Guards the hand-off fields below
+    private CollisionSnapshot mPending;  // Snapshot waiting to be processed
+    private boolean mBusy;  // Whether a submitted pass has not finished yet
 
     private volatile boolean running = true;
+    private volatile boolean mSwept;  // Test motion segments instead of end positions
+    private volatile FrameProfiler mProfiler;  // Times each pass, or null
+
+    // Hits of the current pass, sorted by time of impact before they are reported
+    private int[] mHitSprite = new int[16];
+    private int[] mHitEnemy = new int[16];
+    private float[] mHitTime = new float[16];
+    private int mHitCount;
+
+    // Pass statistics, reported once per second
+    private long mStatsStartNanos;
+    private long mBusyNanos;
+    private int mPasses;
+    private int mCollisions;
+    private long mReportedOverflows;
 
-    public CollisionThread(CopyOnWriteArrayList<AnimatedSprite> sprites, int gridSize, int screenWidth, int screenHeight, CollisionListener collisionListener) {
-        this.mSprites = sprites;
+    public CollisionThread(int gridSize, int screenWidth, int screenHeight, BroadphaseType broadphaseType, CollisionEventRing events) {
+        super(TAG);
         this.mGridSize = gridSize;
         this.mScreenWidth = screenWidth;
         this.mScreenHeight = screenHeight;
-        this.mGrid = new ArrayList[screenWidth / gridSize + 1][screenHeight / gridSize + 1];
-        for (int i = 0; i < mGrid.length; i++) {
-            for (int j = 0; j < mGrid[i].length; j++) {
-                mGrid[i][j] = new ArrayList<>();
+        this.mBroadphase = createBroadphase(broadphaseType);
+        this.mEvents = events;
+    }
+
+    // Switch the broadphase strategy; takes effect from the next pass
+    public void setBroadphaseType(BroadphaseType type) {
+        mNextBroadphase = createBroadphase(type);
+    }
+
+    // Switch between swept and end-position collision tests; takes effect from the next pass
+    public void setSwept(boolean swept) {
+        mSwept = swept;
+    }
+
+    // Time every pass in the profiler's collision histogram; set before start()
+    public void setProfiler(FrameProfiler profiler) {
+        mProfiler = profiler;
+    }
+
+    private Broadphase createBroadphase(BroadphaseType type) {
+        switch (type) {
+            case SWEEP_AND_PRUNE:
+                return new SweepAndPruneBroadphase();
+            case GRID:
+            default:
+                return new GridBroadphase(mGridSize, mScreenWidth, mScreenHeight);
+        }
+    }
+
+    // Simulation thread: hand a snapshot to the collision thread. The caller must not touch it until awaitPass() returns.
+    public void submit(CollisionSnapshot snapshot) {
+        synchronized (mLock) {
+            if (!running) return;
+            mPending = snapshot;
+            mBusy = true;
+            mLock.notifyAll();
+        }
+    }
+
+    // Block until the last submitted pass has finished and queued its events
+    public void awaitPass() {
+        synchronized (mLock) {
+            while (running && mBusy) {
+                try {
+                    mLock.wait();
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
             }
         }
-        this.mCollisionListener = collisionListener;
     }
 
     @Override
     public void run() {
+        mStatsStartNanos = System.nanoTime();
         while (running) {
-            clearGrid();
-            for (AnimatedSprite sprite : mSprites) {
-                addSpriteToGrid(sprite);
+            CollisionSnapshot snapshot;
+            synchronized (mLock) {
+                // Park until there is a tick to process
+                while (running && mPending == null) {
+                    try {
+                        mLock.wait();
+                    } catch (InterruptedException ie) {
+                        running = false;
+                    }
+                }
+                if (!running) break;
+                snapshot = mPending;
+                mPending = null;
+            }
+
+            if (mNextBroadphase != null) {
+                mBroadphase = mNextBroadphase;
+                mNextBroadphase = null;
+            }
+
+            FrameProfiler profiler = mProfiler;
+            long startNanos = profiler != null ? profiler.begin(FrameProfiler.Phase.COLLISION) : System.nanoTime();
+            boolean swept = mSwept;
+            int pairCount = swept
+                    ? mBroadphase.findPairs(snapshot.mSweptLeft, snapshot.mSweptTop, snapshot.mSweptRight, snapshot.mSweptBottom, snapshot.mCount)
+                    : mBroadphase.findPairs(snapshot.mLeft, snapshot.mTop, snapshot.mRight, snapshot.mBottom, snapshot.mCount);
+            int[] pairs = mBroadphase.getPairs();
+            mHitCount = 0;
+            for (int p = 0; p < pairCount; p++) {
+                handlePair(snapshot, pairs[p * 2], pairs[p * 2 + 1], swept);
+            }
+            sortHits();
+            for (int h = 0; h < mHitCount; h++) {
+                dispatch(snapshot, mHitSprite[h], mHitEnemy[h]);
             }
-            for (AnimatedSprite sprite : mSprites) {
-                checkCollisionsForSprite(sprite);
+            long endNanos = System.nanoTime();
+            if (profiler != null) {
+                profiler.end(FrameProfiler.Phase.COLLISION, startNanos);
             }
+
+            synchronized (mLock) {
+                mBusy = false;
+                mLock.notifyAll();
+            }
+            reportStats(endNanos - startNanos, endNanos);
+        }
+        synchronized (mLock) {
+            mBusy = false;
+            mLock.notifyAll();
         }
     }
 
-    private void clearGrid() {
-        for (int i = 0; i < mGrid.length; i++) {
-            for (int j = 0; j < mGrid[i].length; j++) {
-                mGrid[i][j].clear();
-            }
+    // The broadphase reports each overlapping pair once, in either order
+    private void handlePair(CollisionSnapshot snapshot, int a, int b, boolean swept) {
+        SpriteType typeA = snapshot.mTypes[a];
+        SpriteType typeB = snapshot.mTypes[b];
+        if (typeB == SpriteType.ENEMY && typeA != SpriteType.ENEMY) {
+            addHit(snapshot, a, b, swept);
+        } else if (typeA == SpriteType.ENEMY && typeB != SpriteType.ENEMY) {
+            addHit(snapshot, b, a, swept);
         }
     }
 
-    private void addSpriteToGrid(AnimatedSprite sprite) {
-        int x = (int) (sprite.getX() / mGridSize);
-        int y = (int) (sprite.getY() / mGridSize);
-        if (x >= 0 && x < mGrid.length && y >= 0 && y < mGrid[0].length) {
-            mGrid[x][y].add(sprite);
+    private void addHit(CollisionSnapshot snapshot, int sprite, int enemy, boolean swept) {
+        float time = 1f;  // End-position hits all happen at the end of the tick
+        if (swept) {
+            time = snapshot.timeOfImpact(sprite, enemy);
+            if (time == Sprite.NO_HIT) return;
+            // Pixel narrowphase where the boxes overlap deepest along the motion, and at the end of the tick
+            float middle = (time + snapshot.timeOfSeparation(sprite, enemy)) / 2f;
+            if (!snapshot.masksOverlap(sprite, enemy, middle) && !snapshot.masksOverlap(sprite, enemy, 1f)) {
+                return;
+            }
+        } else if (!snapshot.masksOverlap(sprite, enemy, 1f)) {
+            return;
         }
+        if (mHitCount == mHitTime.length) {
+            int capacity = mHitCount * 2;
+            int[] hitSprite = new int[capacity];
+            int[] hitEnemy = new int[capacity];
+            float[] hitTime = new float[capacity];
+            System.arraycopy(mHitSprite, 0, hitSprite, 0, mHitCount);
+            System.arraycopy(mHitEnemy, 0, hitEnemy, 0, mHitCount);
+            System.arraycopy(mHitTime, 0, hitTime, 0, mHitCount);
+            mHitSprite = hitSprite;
+            mHitEnemy = hitEnemy;
+            mHitTime = hitTime;
+        }
+        mHitSprite[mHitCount] = sprite;
+        mHitEnemy[mHitCount] = enemy;
+        mHitTime[mHitCount] = time;
+        mHitCount++;
     }
 
-    private void checkCollisionsForSprite(AnimatedSprite sprite) {
-        int x = (int) (sprite.getX() / mGridSize);
-        int y = (int) (sprite.getY() / mGridSize);
-        for (int i = Math.max(0, x - 1); i <= Math.min(mGrid.length - 1, x + 1); i++) {
-            for (int j = Math.max(0, y - 1); j <= Math.min(mGrid[i].length - 1, y + 1); j++) {
-                for (AnimatedSprite otherSprite : mGrid[i][j]) {
-                    if (sprite != otherSprite && sprite.collideWith(otherSprite)) {
-                        if (sprite.getType() == SpriteType.PLAYER && otherSprite.getType() == SpriteType.ENEMY) {
-                            mCollisionListener.onPlayerEnemyCollision(sprite, otherSprite);
-                        } else if (sprite.getType() == SpriteType.BULLET && otherSprite.getType() == SpriteType.ENEMY) {
-                            mCollisionListener.onBulletEnemyCollision(sprite, otherSprite);
-                        }
-                    }
-                }
+    // Insertion sort by time of impact; hits per pass are few, and this allocates nothing
+    private void sortHits() {
+        for (int i = 1; i < mHitCount; i++) {
+            int sprite = mHitSprite[i];
+            int enemy = mHitEnemy[i];
+            float time = mHitTime[i];
+            int j = i - 1;
+            while (j >= 0 && mHitTime[j] > time) {
+                mHitSprite[j + 1] = mHitSprite[j];
+                mHitEnemy[j + 1] = mHitEnemy[j];
+                mHitTime[j + 1] = mHitTime[j];
+                j--;
             }
+            mHitSprite[j + 1] = sprite;
+            mHitEnemy[j + 1] = enemy;
+            mHitTime[j + 1] = time;
+        }
+    }
+
+    private void dispatch(CollisionSnapshot snapshot, int sprite, int enemy) {
+        SpriteType type = snapshot.mTypes[sprite];
+        if (type == SpriteType.PLAYER || type == SpriteType.BULLET) {
+            mCollisions++;
+            mEvents.offer(snapshot.mHandles[sprite], snapshot.mHandles[enemy]);  // The player's handle is NO_HANDLE
         }
     }
 
+    private void reportStats(long passNanos, long nowNanos) {
+        mPasses++;
+        mBusyNanos += passNanos;
+        long elapsedNanos = nowNanos - mStatsStartNanos;
+        if (elapsedNanos < STATS_INTERVAL_NANOS) return;
+
+        float seconds = elapsedNanos / 1000000000f;
+        long overflows = mEvents.getOverflowCount();
+        Log.d(TAG, String.format("%.1f passes/s, %.1f collisions/s, %d events dropped, busy %.2f%% of one core",
+                mPasses / seconds, mCollisions / seconds, overflows - mReportedOverflows, 100f * mBusyNanos / elapsedNanos));
+        mReportedOverflows = overflows;
+        mStatsStartNanos = nowNanos;
+        mBusyNanos = 0;
+        mPasses = 0;
+        mCollisions = 0;
+    }
+
     public void shutDown() {
-        running = false;
+        synchronized (mLock) {
+            running = false;
+            mLock.notifyAll();
+        }
     }
 }
-
@@ -0,0 +1,390 @@
+package com.example.falcon_strike_app;
+
+// Structure-of-arrays storage for enemies, bullets and explosions. spawn() and kill() take effect at
+// commit(), so dense indices only hold between commits; keep a handle and use indexOf() across ticks.
+public class EntityStore {
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int SLOT_BITS = 16;  // Low bits of a handle select the slot
+    private static final int SLOT_MASK = (1 << SLOT_BITS) - 1;
+    private static final int GENERATION_MASK = 0x7fff;  // High bits count slot reuse, kept positive
+    public static final int NO_HANDLE = -1;
+
+    private final SpriteSheet[] mSheets;  // Sheets addressed by mSheet
+    private final SpriteType[] mTypes = SpriteType.values();
+
+    // Dense entity data, one entry per entity
+    float[] mX, mY;  // Centre position
+    float[] mPrevX, mPrevY;  // Centre position before the last integrate(), for render interpolation
+    float[] mXSpeed, mYSpeed;  // Velocity in pixels per second
+    float[] mScale;  // Draw scale
+    float[] mHalfWidth, mHalfHeight;  // Half size after scaling
+    float[] mTimeToLive;  // Seconds until the entity removes itself, negative for never
+    int[] mType;  // SpriteType ordinal
+    int[] mSheet;  // Index into mSheets
+    int[] mFrame;  // Current animation frame
+    int[] mFrameMillis;  // Duration of one animation frame
+    long[] mNextFrameTime;  // Time of the next animation frame
+    boolean[] mAlive;  // Cleared by kill(), entity is removed at the next commit()
+    int[] mHandle;  // Handle of the entity in each dense slot
+
+    private int mCount;  // Committed entities, indices [0, mCount)
+    private int mStaged;  // Entities spawned since the last commit, indices [mCount, mCount + mStaged)
+    private int mKilled;  // Entities killed since the last commit
+
+    // Handle table: slot -> dense index, with a generation to reject stale handles
+    private int[] mSlotIndex = new int[INITIAL_CAPACITY];
+    private int[] mSlotGeneration = new int[INITIAL_CAPACITY];
+    private int[] mFreeSlots = new int[INITIAL_CAPACITY];
+    private int mFreeSlotCount;
+    private int mSlotCount;
+
+    // Typed iteration views, rebuilt on every commit
+    private final int[][] mViews = new int[mTypes.length][];
+    private final int[] mViewSize = new int[mTypes.length];
+    private final int[] mStagedSize = new int[mTypes.length];  // Staged entities of each type
+
+    private int mHighWaterMark;  // Largest number of entities alive at once
+    private int mGrowCount;  // Times the arrays had to grow during play
+
+    public EntityStore(SpriteSheet[] sheets) {
+        mSheets = sheets;
+        allocate(INITIAL_CAPACITY);
+        for (int t = 0; t < mTypes.length; t++) {
+            mViews[t] = new int[INITIAL_CAPACITY];
+        }
+    }
+
+    // Reserve room for capacity entities, so a level can run without growing the arrays
+    public void prewarm(int capacity) {
+        if (mX.length < capacity) {
+            resize(capacity);
+        }
+        if (mSlotIndex.length < capacity) {
+            resizeSlots(capacity);
+        }
+    }
+
+    // Stage a new entity. It becomes visible to views, collisions and render after the next commit().
+    public int spawn(SpriteType type, int sheet, int framesPerSecond, float x, float y, float xSpeed, float ySpeed) {
+        int index = mCount + mStaged;
+        if (index == mX.length) {
+            resize(mX.length * 2);
+            mGrowCount++;
+        }
+        mStaged++;
+        mStagedSize[type.ordinal()]++;
+
+        SpriteSheet spriteSheet = mSheets[sheet];
+        mX[index] = mPrevX[index] = x;
+        mY[index] = mPrevY[index] = y;
+        mXSpeed[index] = xSpeed;
+        mYSpeed[index] = ySpeed;
+        mScale[index] = 1f;
+        mHalfWidth[index] = spriteSheet.getFrameWidth() / 2f;
+        mHalfHeight[index] = spriteSheet.getFrameHeight() / 2f;
+        mTimeToLive[index] = -1f;
+        mType[index] = type.ordinal();
+        mSheet[index] = sheet;
+        mFrame[index] = 0;
+        mFrameMillis[index] = 1000 / framesPerSecond;
+        mNextFrameTime[index] = 0;
+        mAlive[index] = true;
+
+        int slot = allocateSlot();
+        mSlotIndex[slot] = index;
+        mHandle[index] = (mSlotGeneration[slot] << SLOT_BITS) | slot;
+        return mHandle[index];
+    }
+
+    // Mark an entity dead; it stops being drawn at once and is removed at the next commit()
+    public void kill(int handle) {
+        int index = indexOf(handle);
+        if (index >= 0) {
+            killAt(index);
+        }
+    }
+
+    public void killAt(int index) {
+        if (mAlive[index]) {
+            mAlive[index] = false;
+            mKilled++;
+        }
+    }
+
+    // Slot of a handle; distinct live entities always have distinct slots
+    static int slotOf(int handle) {
+        return handle & SLOT_MASK;
+    }
+
+    // Dense index of a live entity, or -1 if the handle is stale or the entity was killed
+    public int indexOf(int handle) {
+        if (handle < 0) return -1;
+        int slot = handle & SLOT_MASK;
+        if (slot >= mSlotCount || mSlotGeneration[slot] != (handle >>> SLOT_BITS)) return -1;
+        int index = mSlotIndex[slot];
+        return index >= 0 && mAlive[index] ? index : -1;
+    }
+
+    // Apply the spawns and kills of this tick: swap-remove dead entities and rebuild the views
+    public void commit() {
+        int end = mCount + mStaged;
+        if (mKilled > 0) {
+            int i = 0;
+            while (i < end) {
+                if (mAlive[i]) {
+                    i++;
+                    continue;
+                }
+                releaseSlot(mHandle[i] & SLOT_MASK);
+                end--;
+                if (i != end) {
+                    move(end, i);
+                }
+            }
+        }
+        mCount = end;
+        mStaged = 0;
+        mKilled = 0;
+        mHighWaterMark = Math.max(mHighWaterMark, mCount);
+
+        for (int t = 0; t < mTypes.length; t++) {
+            mViewSize[t] = 0;
+            mStagedSize[t] = 0;
+            if (mViews[t].length < mX.length) {
+                mViews[t] = new int[mX.length];
+            }
+        }
+        for (int i = 0; i < mCount; i++) {
+            int type = mType[i];
+            mViews[type][mViewSize[type]++] = i;
+        }
+    }
+
+    // Remove every entity at once, e.g. when a new game starts
+    public void clear() {
+        mCount = mStaged = mKilled = 0;
+        for (int slot = 0; slot < mSlotCount; slot++) {
+            if (mSlotIndex[slot] >= 0) {
+                releaseSlot(slot);
+            }
+        }
+        for (int t = 0; t < mTypes.length; t++) {
+            mViewSize[t] = mStagedSize[t] = 0;
+        }
+    }
+
+    // Advance every live entity by its velocity and expire the ones whose time is up
+    public void integrate(float deltaTime) {
+        float[] x = mX, y = mY, prevX = mPrevX, prevY = mPrevY, xSpeed = mXSpeed, ySpeed = mYSpeed;
+        float[] timeToLive = mTimeToLive;
+        boolean[] alive = mAlive;
+        for (int i = 0; i < mCount; i++) {
+            if (!alive[i]) continue;
+            prevX[i] = x[i];
+            prevY[i] = y[i];
+            x[i] += xSpeed[i] * deltaTime;
+            y[i] += ySpeed[i] * deltaTime;
+            if (timeToLive[i] >= 0f) {
+                timeToLive[i] -= deltaTime;
+                if (timeToLive[i] <= 0f) {
+                    killAt(i);
+                }
+            }
+        }
+    }
+
+    // Set position, keeping the entity inside the screen the same way Sprite.setPosition() does.
+    // This is a teleport: the previous position is reset too, so render() does not interpolate across it.
+    public void place(int index, float x, float y, int screenWidth, int screenHeight) {
+        float halfWidth = mHalfWidth[index];
+        float halfHeight = mHalfHeight[index];
+        if (x - halfWidth < 0) {
+            x = halfWidth;
+        } else if (x + halfWidth > screenWidth) {
+            x = screenWidth - halfWidth;
+        }
+        if (y - halfHeight < 0) {
+            y = halfHeight;
+        } else if (y + halfHeight > screenHeight) {
+            y = screenHeight - halfHeight;
+        }
+        mX[index] = mPrevX[index] = x;
+        mY[index] = mPrevY[index] = y;
+    }
+
+    public void setScale(int index, float scale) {
+        SpriteSheet sheet = mSheets[mSheet[index]];
+        mScale[index] = scale;
+        mHalfWidth[index] = sheet.getFrameWidth() * scale / 2f;
+        mHalfHeight[index] = sheet.getFrameHeight() * scale / 2f;
+    }
+
+    public void setTimeToLive(int index, float seconds) {
+        mTimeToLive[index] = seconds;
+    }
+
+    // Advance the animation of every live entity; now is the game time in milliseconds, see GameClock
+    public void animate(long now) {
+        for (int i = 0; i < mCount; i++) {
+            if (!mAlive[i] || mNextFrameTime[i] > now) continue;
+            mFrame[i] = (mFrame[i] + 1) % mSheets[mSheet[i]].getNumFrames();
+            mNextFrameTime[i] = now + mFrameMillis[i];
+        }
+    }
+
+    // Dense indices of the committed entities of one type; valid until the next commit()
+    public int[] view(SpriteType type) {
+        return mViews[type.ordinal()];
+    }
+
+    public int viewSize(SpriteType type) {
+        return mViewSize[type.ordinal()];
+    }
+
+    // Entities of one type spawned since the last commit(), not in the view yet
+    public int stagedSize(SpriteType type) {
+        return mStagedSize[type.ordinal()];
+    }
+
+    // Number of committed entities, live or killed this tick
+    public int size() {
+        return mCount;
+    }
+
+    public boolean isAlive(int index) {
+        return mAlive[index];
+    }
+
+    public float getX(int index) {
+        return mX[index];
+    }
+
+    public float getY(int index) {
+        return mY[index];
+    }
+
+    public float getWidth(int index) {
+        return mHalfWidth[index] * 2f;
+    }
+
+    public float getHeight(int index) {
+        return mHalfHeight[index] * 2f;
+    }
+
+    public SpriteSheet getSheet(int index) {
+        return mSheets[mSheet[index]];
+    }
+
+    public int getHighWaterMark() {
+        return mHighWaterMark;
+    }
+
+    public int getGrowCount() {
+        return mGrowCount;
+    }
+
+    @Override
+    public String toString() {
+        return "EntityStore: live " + mCount + ", capacity " + mX.length
+                + ", high-water " + mHighWaterMark + ", grown " + mGrowCount + " times";
+    }
+
+    private void move(int from, int to) {
+        mX[to] = mX[from];
+        mY[to] = mY[from];
+        mPrevX[to] = mPrevX[from];
+        mPrevY[to] = mPrevY[from];
+        mXSpeed[to] = mXSpeed[from];
+        mYSpeed[to] = mYSpeed[from];
+        mScale[to] = mScale[from];
+        mHalfWidth[to] = mHalfWidth[from];
+        mHalfHeight[to] = mHalfHeight[from];
+        mTimeToLive[to] = mTimeToLive[from];
+        mType[to] = mType[from];
+        mSheet[to] = mSheet[from];
+        mFrame[to] = mFrame[from];
+        mFrameMillis[to] = mFrameMillis[from];
+        mNextFrameTime[to] = mNextFrameTime[from];
+        mAlive[to] = mAlive[from];
+        mHandle[to] = mHandle[from];
+        mSlotIndex[mHandle[to] & SLOT_MASK] = to;
+    }
+
+    private int allocateSlot() {
+        if (mFreeSlotCount > 0) {
+            return mFreeSlots[--mFreeSlotCount];
+        }
+        if (mSlotCount == mSlotIndex.length) {
+            resizeSlots(mSlotIndex.length * 2);
+        }
+        if (mSlotCount > SLOT_MASK) {
+            throw new IllegalStateException("Too many entities: " + mSlotCount);
+        }
+        return mSlotCount++;
+    }
+
+    private void releaseSlot(int slot) {
+        mSlotIndex[slot] = -1;
+        mSlotGeneration[slot] = (mSlotGeneration[slot] + 1) & GENERATION_MASK;
+        mFreeSlots[mFreeSlotCount++] = slot;
+    }
+
+    private void resizeSlots(int capacity) {
+        int[] slotIndex = new int[capacity];
+        int[] slotGeneration = new int[capacity];
+        int[] freeSlots = new int[capacity];
+        System.arraycopy(mSlotIndex, 0, slotIndex, 0, mSlotCount);
+        System.arraycopy(mSlotGeneration, 0, slotGeneration, 0, mSlotCount);
+        System.arraycopy(mFreeSlots, 0, freeSlots, 0, mFreeSlotCount);
+        mSlotIndex = slotIndex;
+        mSlotGeneration = slotGeneration;
+        mFreeSlots = freeSlots;
+    }
+
+    private void allocate(int capacity) {
+        mX = new float[capacity];
+        mY = new float[capacity];
+        mPrevX = new float[capacity];
+        mPrevY = new float[capacity];
+        mXSpeed = new float[capacity];
+        mYSpeed = new float[capacity];
+        mScale = new float[capacity];
+        mHalfWidth = new float[capacity];
+        mHalfHeight = new float[capacity];
+        mTimeToLive = new float[capacity];
+        mType = new int[capacity];
+        mSheet = new int[capacity];
+        mFrame = new int[capacity];
+        mFrameMillis = new int[capacity];
+        mNextFrameTime = new long[capacity];
+        mAlive = new boolean[capacity];
+        mHandle = new int[capacity];
+    }
+
+    private void resize(int capacity) {
+        int count = mCount + mStaged;
+        float[] x = mX, y = mY, prevX = mPrevX, prevY = mPrevY, xSpeed = mXSpeed, ySpeed = mYSpeed, scale = mScale;
+        float[] halfWidth = mHalfWidth, halfHeight = mHalfHeight, timeToLive = mTimeToLive;
+        int[] type = mType, sheet = mSheet, frame = mFrame, frameMillis = mFrameMillis, handle = mHandle;
+        long[] nextFrameTime = mNextFrameTime;
+        boolean[] alive = mAlive;
+        allocate(capacity);
+        System.arraycopy(x, 0, mX, 0, count);
+        System.arraycopy(y, 0, mY, 0, count);
+        System.arraycopy(prevX, 0, mPrevX, 0, count);
+        System.arraycopy(prevY, 0, mPrevY, 0, count);
+        System.arraycopy(xSpeed, 0, mXSpeed, 0, count);
+        System.arraycopy(ySpeed, 0, mYSpeed, 0, count);
+        System.arraycopy(scale, 0, mScale, 0, count);
+        System.arraycopy(halfWidth, 0, mHalfWidth, 0, count);
+        System.arraycopy(halfHeight, 0, mHalfHeight, 0, count);
+        System.arraycopy(timeToLive, 0, mTimeToLive, 0, count);
+        System.arraycopy(type, 0, mType, 0, count);
+        System.arraycopy(sheet, 0, mSheet, 0, count);
+        System.arraycopy(frame, 0, mFrame, 0, count);
+        System.arraycopy(frameMillis, 0, mFrameMillis, 0, count);
+        System.arraycopy(nextFrameTime, 0, mNextFrameTime, 0, count);
+        System.arraycopy(alive, 0, mAlive, 0, count);
+        System.arraycopy(handle, 0, mHandle, 0, count);
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.falcon_strike_app;
+
+// Decides, for each display vsync, whether the render thread draws a frame. The rate is the display's
+// peak refresh rate divided by a whole number, lowered and raised by QualityGovernor.
+public class FramePacer {
+    private static final long ONE_SECOND_NANOS = 1000000000L;
+    private static final float MIN_FRAME_RATE = 30f;  // Never drop below this
+
+    private final float mPeakRate;  // Highest refresh rate the display supports
+    private float mRefreshRate;  // Current display mode
+    private long mVsyncNanos;
+    private int mDivisor = 1;  // Frame rate is mPeakRate / mDivisor
+    private int mMinDivisor = 1;
+    private final int mMaxDivisor;
+
+    private long mNextFrameNanos;  // Earliest vsync of the next frame to draw
+    private boolean mSkippedLast;  // Whether the previous vsync that was due was skipped as late
+
+    // Counters, for profiling
+    private long mDrawn, mSkipped, mRateChanges;
+
+    public FramePacer(float peakRate, float refreshRate) {
+        mPeakRate = Math.max(peakRate, refreshRate);
+        mMaxDivisor = Math.max(1, (int) (mPeakRate / MIN_FRAME_RATE));
+        setRefreshRate(refreshRate);
+    }
+
+    // Follow a change of the display mode
+    public void setRefreshRate(float refreshRate) {
+        if (refreshRate <= 0) return;
+        mRefreshRate = refreshRate;
+        mVsyncNanos = (long) (ONE_SECOND_NANOS / refreshRate);
+    }
+
+    // Cap the frame rate, e.g. to save battery on a 120 Hz display; 0 removes the cap
+    public void setMaxFrameRate(float maxFrameRate) {
+        mMinDivisor = maxFrameRate > 0 ? Math.min(mMaxDivisor, Math.max(1, (int) Math.ceil(mPeakRate / maxFrameRate - 0.01f))) : 1;
+        mDivisor = clampDivisor(mDivisor);
+    }
+
+    private int clampDivisor(int divisor) {
+        return Math.max(mMinDivisor, Math.min(divisor, mMaxDivisor));
+    }
+
+    // Vsyncs of the current display mode per drawn frame
+    private int stride() {
+        return Math.max(1, Math.round(mRefreshRate * mDivisor / mPeakRate));
+    }
+
+    public float getRefreshRate() {
+        return mRefreshRate;
+    }
+
+    // Frame rate to request from the system with Surface.setFrameRate()
+    public float getFrameRate() {
+        return mPeakRate / mDivisor;
+    }
+
+    // Interval each frame gets at the current rate and display mode
+    public long getFrameBudgetNanos() {
+        return mVsyncNanos * stride();
+    }
+
+    // Render thread, at each vsync with the Choreographer frame time; true if this vsync should be drawn.
+    // A frame that starts after its vsync has passed is skipped, but never two in a row.
+    public boolean shouldRender(long frameTimeNanos, long nowNanos) {
+        if (frameTimeNanos < mNextFrameNanos - mVsyncNanos / 2) return false;  // Between the frames of a lower rate
+        if (nowNanos - frameTimeNanos > mVsyncNanos && !mSkippedLast) {
+            // The next vsync has already passed, so this frame would be shown late; let the next callback draw
+            mSkippedLast = true;
+            mSkipped++;
+            return false;
+        }
+        mSkippedLast = false;
+        mNextFrameNanos = frameTimeNanos + getFrameBudgetNanos();
+        mDrawn++;
+        return true;
+    }
+
+    // Interval each frame would get at the next faster rate
+    public long getFasterFrameBudgetNanos() {
+        return (long) (ONE_SECOND_NANOS * clampDivisor(mDivisor - 1) / mPeakRate);
+    }
+
+    public boolean canRaiseRate() {
+        return mDivisor > mMinDivisor;
+    }
+
+    // Drop to the next lower rate. Returns false if already at the lowest.
+    public boolean lowerRate() {
+        return setDivisor(mDivisor + 1);
+    }
+
+    // Go back to the next faster rate. Returns false if already at the highest allowed.
+    public boolean raiseRate() {
+        return setDivisor(mDivisor - 1);
+    }
+
+    private boolean setDivisor(int divisor) {
+        divisor = clampDivisor(divisor);
+        if (divisor == mDivisor) return false;
+        mDivisor = divisor;
+        mRateChanges++;
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "FramePacer: " + mRefreshRate + " of " + mPeakRate + " Hz, " + getFrameRate() + " fps, drawn " + mDrawn
+                + ", skipped late " + mSkipped + ", rate changes " + mRateChanges;
+    }
+}
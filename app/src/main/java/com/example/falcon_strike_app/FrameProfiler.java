@@ -0,0 +1,165 @@
+package com.example.falcon_strike_app;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.os.Build;
+import android.os.Trace;
+
+import java.io.IOException;
+import java.io.Writer;
+
+// Times each phase of a frame into its own LatencyHistogram and a Trace section, so a Perfetto capture
+// shows the same data on a timeline.
+public class FrameProfiler {
+
+    public enum Phase {
+        INPUT("input"),  // UI thread
+        UPDATE("update"),  // Simulation thread
+        COLLISION("collision"),  // Collision thread
+        RENDER("render"),  // Render thread, as are the two below
+        POST("post"),  // unlockCanvasAndPost
+        LATENCY("touch"),  // From a touch sample to the post of the first frame showing it
+        ;
+
+        final String mLabel;
+        final String mSection;  // Trace section and counter name
+        final char[] mLabelChars;
+
+        Phase(String label) {
+            mLabel = label;
+            mSection = "FalconStrike:" + label;
+            mLabelChars = label.toCharArray();
+        }
+    }
+
+    private static final Phase[] PHASES = Phase.values();
+    private static final long OVERLAY_REFRESH_NANOS = 500000000L;  // Keep the overlay numbers readable
+    private static final int OVERLAY_LINE_LENGTH = 64;
+
+    private final LatencyHistogram[] mHistograms = new LatencyHistogram[PHASES.length];
+    private volatile boolean mOverlayEnabled;
+
+    // Overlay text, reformatted every OVERLAY_REFRESH_NANOS; render thread only
+    private final char[][] mOverlayLines = new char[PHASES.length][OVERLAY_LINE_LENGTH];
+    private final int[] mOverlayLengths = new int[PHASES.length];
+    private long mOverlayUpdatedNanos = Long.MIN_VALUE;
+
+    public FrameProfiler() {
+        for (int i = 0; i < mHistograms.length; i++) {
+            mHistograms[i] = new LatencyHistogram();
+        }
+    }
+
+    // Start timing a phase, on the one thread that runs it; pass the returned time to end() on that thread
+    public long begin(Phase phase) {
+        Trace.beginSection(phase.mSection);
+        return System.nanoTime();
+    }
+
+    public void end(Phase phase, long startNanos) {
+        long nanos = System.nanoTime() - startNanos;
+        Trace.endSection();
+        record(phase, nanos);
+    }
+
+    // Record a duration measured elsewhere
+    public void record(Phase phase, long nanos) {
+        mHistograms[phase.ordinal()].record(nanos);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            Trace.setCounter(phase.mSection, nanos / 1000);
+        }
+    }
+
+    public LatencyHistogram getHistogram(Phase phase) {
+        return mHistograms[phase.ordinal()];
+    }
+
+    public boolean isOverlayEnabled() {
+        return mOverlayEnabled;
+    }
+
+    public void setOverlayEnabled(boolean enabled) {
+        mOverlayEnabled = enabled;
+    }
+
+    // Draw p50/p95/p99/max of every phase, one line each, starting at the given baseline
+    public void drawOverlay(Canvas canvas, Paint paint, float x, float y, float lineHeight) {
+        long now = System.nanoTime();
+        if (now - mOverlayUpdatedNanos >= OVERLAY_REFRESH_NANOS) {
+            for (Phase phase : PHASES) {
+                formatLine(phase);
+            }
+            mOverlayUpdatedNanos = now;
+        }
+        for (int i = 0; i < PHASES.length; i++) {
+            canvas.drawText(mOverlayLines[i], 0, mOverlayLengths[i], x, y + i * lineHeight, paint);
+        }
+    }
+
+    // "update p50 0.42 p95 0.80 p99 1.20 max 3.10 ms"
+    private void formatLine(Phase phase) {
+        LatencyHistogram histogram = mHistograms[phase.ordinal()];
+        char[] line = mOverlayLines[phase.ordinal()];
+        int length = append(line, 0, phase.mLabelChars);
+        length = appendMillis(line, append(line, length, " p50 "), histogram.getPercentile(50));
+        length = appendMillis(line, append(line, length, " p95 "), histogram.getPercentile(95));
+        length = appendMillis(line, append(line, length, " p99 "), histogram.getPercentile(99));
+        length = appendMillis(line, append(line, length, " max "), histogram.getMax());
+        mOverlayLengths[phase.ordinal()] = append(line, length, " ms");
+    }
+
+    private static int append(char[] line, int at, String text) {
+        for (int i = 0; i < text.length() && at < line.length; i++) {
+            line[at++] = text.charAt(i);
+        }
+        return at;
+    }
+
+    private static int append(char[] line, int at, char[] text) {
+        for (int i = 0; i < text.length && at < line.length; i++) {
+            line[at++] = text[i];
+        }
+        return at;
+    }
+
+    // Nanoseconds as milliseconds with two decimals
+    private static int appendMillis(char[] line, int at, long nanos) {
+        long hundredths = (nanos + 5000) / 10000;
+        long whole = hundredths / 100;
+        int digits = 1;
+        for (long v = whole / 10; v > 0; v /= 10) {
+            digits++;
+        }
+        if (at + digits + 3 > line.length) return at;
+        for (int i = at + digits - 1; i >= at; i--) {
+            line[i] = (char) ('0' + whole % 10);
+            whole /= 10;
+        }
+        at += digits;
+        line[at++] = '.';
+        line[at++] = (char) ('0' + hundredths % 100 / 10);
+        line[at++] = (char) ('0' + hundredths % 10);
+        return at;
+    }
+
+    // Percentiles of every phase, then the bucket counts, in a plain text format meant for diffing
+    // between runs. Only consistent while no phase is being timed.
+    public void dump(Writer out) throws IOException {
+        out.write("phase,count,p50_ns,p95_ns,p99_ns,max_ns\n");
+        for (Phase phase : PHASES) {
+            LatencyHistogram histogram = mHistograms[phase.ordinal()];
+            out.write(phase.mLabel + "," + histogram.getCount() + "," + histogram.getPercentile(50) + ","
+                    + histogram.getPercentile(95) + "," + histogram.getPercentile(99) + "," + histogram.getMax() + "\n");
+        }
+        for (Phase phase : PHASES) {
+            out.write("\n# " + phase.mLabel + " buckets: highest_ns,count\n");
+            mHistograms[phase.ordinal()].writeBuckets(out);
+        }
+    }
+
+    public void reset() {
+        for (LatencyHistogram histogram : mHistograms) {
+            histogram.reset();
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.falcon_strike_app;
+
+// Game time, the one clock every gameplay timing decision reads. Only the simulation step advances it,
+// so a test or benchmark can drive its own GameClock and get the same timing on every run.
+public class GameClock {
+    private volatile long mNowNanos;  // Game time elapsed, written by the advancing thread only
+    private volatile float mTimeScale = 1f;  // Game seconds per real second
+    private volatile boolean mPaused;
+
+    // Simulation thread: advance by deltaTime real seconds and return the game seconds that passed
+    public float advance(float deltaTime) {
+        if (mPaused) return 0f;
+        float gameTime = deltaTime * mTimeScale;
+        mNowNanos += (long) (gameTime * 1000000000.0);
+        return gameTime;
+    }
+
+    // Current game time in milliseconds
+    public long now() {
+        return mNowNanos / 1000000L;
+    }
+
+    public long nowNanos() {
+        return mNowNanos;
+    }
+
+    public void setPaused(boolean paused) {
+        mPaused = paused;
+    }
+
+    public boolean isPaused() {
+        return mPaused;
+    }
+
+    // Slow motion below 1, fast forward above 1
+    public void setTimeScale(float timeScale) {
+        if (timeScale < 0f) {
+            throw new IllegalArgumentException("Time scale must not be negative: " + timeScale);
+        }
+        mTimeScale = timeScale;
+    }
+
+    public float getTimeScale() {
+        return mTimeScale;
+    }
+}
@@ -4,26 +4,27 @@ import android.annotation.SuppressLint;
 import android.content.Context;
 import android.content.Intent;
 import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
-import android.graphics.Rect;
-import android.media.AudioAttributes;
+import android.graphics.RectF;
 import android.media.SoundPool;
 import android.os.Handler;
+import android.os.SystemClock;
 import android.util.AttributeSet;
+import android.util.Log;
 import android.view.MotionEvent;
 import android.view.SurfaceView;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
-import com.example.falconstrikeapp.R;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 
-import java.util.concurrent.CopyOnWriteArrayList;
-
-public class GamePanel extends SurfaceView implements CollisionListener {
+public class GamePanel extends SurfaceView implements CollisionListener, InputEventRing.Consumer {
 
     public enum BitmapType {
         PLAYER,
@@ -37,30 +38,68 @@ public class GamePanel extends SurfaceView implements CollisionListener {
         BACKGROUND_BASE,
     }
 
-    private Bitmap[] mBitmaps;
+    private static final String TAG = "GamePanel";
+
+    private final AssetCache mAssets;  // Shared bitmaps, sheets, atlas and sounds, released with the panel
+    private final SpriteSheet[] mSheets;  // Frame tables and collision masks per bitmap, null for backgrounds
+    private final TextureAtlas mAtlas;  // Every sprite sheet packed into as few bitmaps as possible
+    private final SpriteBatch mSpriteBatch;  // Draws the sprites of a frame with one call per atlas page, render thread only
     private int mNextLevelScore;
 
-    private AnimatedSprite mDraggingSprite;  // The sprite currently being dragged
+    private AnimatedSprite mDraggingSprite;  // The sprite currently being dragged, simulation thread only
+    private final MotionPredictor mPredictor = new MotionPredictor();  // Recent drag samples, simulation thread only
+    private final float[] mPredicted = new float[2];
+    private volatile int mPredictionMillis;  // How far ahead the dragged player is drawn, 0 to draw it where the finger was
+    private long mLastInputMillis;  // Event time of the newest touch sample applied, simulation thread only
 
+    static final int LEVEL_COUNT = 4;  // Passing the last level wins the game
     private static final int MAX_ENEMIES = 10;  // Maximum number of enemies
     private static final float BULLET_SPEED = -300f;  // Bullet speed
     private static final long BULLET_INTERVAL = 500;  // Bullet interval
     private static final long PLAYER_INVINCIBLE_TIME = 3000;  // Player invincible time
-    private long mLastHitTime;  // Last hit time
+    private static final float EXPLOSION_TIME = 3f;  // Seconds an explosion stays on screen
+    private static final float[] EXPLOSION_TIMES = {EXPLOSION_TIME, 1.5f, 0.75f};  // Per QualityGovernor.Level
+    private static final int[] MAX_EXPLOSIONS = {Integer.MAX_VALUE, 8, 3};  // Per QualityGovernor.Level; the sound still plays
+    private static final int COLLISION_EVENT_CAPACITY = 256;  // Collision events buffered between two ticks
+    private static final int INPUT_CAPACITY = 512;  // Touch samples buffered between two ticks, historical ones included
+    private static final int ENTITY_CAPACITY = 64;  // Entities reserved before play, well above a level's high-water mark; also sizes the collision de-duplication
+    private long mInvincibleUntil;  // Game time at which the player can be hit again
     private final Paint mPaint;  // Paint object
-    private final CopyOnWriteArrayList<AnimatedSprite> mSprites;  // List of sprites
+    // HUD and overlay text, measured once and redrawn without allocating; render thread only
+    private final HudText mScoreText = new HudText("Score :", true);
+    private final HudText mHPText = new HudText("HP :", true);
+    private final HudText mWinText = new HudText("You Win");
+    private final HudText mGameOverText = new HudText("Game Over");
+    private final HudText mBackToMenuText = new HudText("Backing to Menu");
+    private final HudText mTitleText = new HudText("Falcon Strike");
+    private final HudText mStartText = new HudText("Touch and drag the\nplayer to start");
     private final AnimatedSprite mPlayer;  // Player sprite
-    private final CopyOnWriteArrayList<AnimatedSprite> mEnemy;  // List of enemy sprites
-    private final CopyOnWriteArrayList<AnimatedSprite> mBullets;  // List of bullet sprites
+    private final EntityStore mEntities;  // Enemies, bullets and explosions
+    private final TimerWheel mTimers = new TimerWheel();  // Gameplay timers, advanced by update()
+    private GameClock mClock = new GameClock();  // Game time, advanced by the simulation thread
 
     private CollisionThread collisionThread;  // Collision thread
-
-    private Bitmap mBackgroundBitmap;  // Background bitmap
+    private CollisionThread.BroadphaseType mBroadphaseType = CollisionThread.BroadphaseType.GRID;  // Collision broadphase strategy
+    private boolean mSweptCollisions = true;  // Test the motion of each tick instead of end positions only
+    private final CollisionSnapshot mCollisionSnapshot = new CollisionSnapshot();  // Positions handed to the collision thread
+    private final CollisionEventRing mCollisionEvents = new CollisionEventRing(COLLISION_EVENT_CAPACITY, ENTITY_CAPACITY);  // Hits found by the collision thread
+    private final InputEventRing mInput = new InputEventRing(INPUT_CAPACITY);  // Touch samples from the UI thread
+    // Size of the surface buffer as a fraction of the view; the display hardware scales it up. The game
+    // world stays in view pixels, which is also what touch events report, and render() maps it onto
+    // the smaller buffer, so gameplay is the same at every scale.
+    private volatile float mRenderScale = 1f;
+    private volatile QualityGovernor.Level mQuality = QualityGovernor.Level.HIGH;  // Set by the render thread
+    private final FrameProfiler mProfiler = new FrameProfiler();  // Per-phase frame timings, shared with the game threads
+    private final TripleBuffer<RenderSnapshot> mFrames = new TripleBuffer<>(new RenderSnapshot(), new RenderSnapshot(), new RenderSnapshot());  // Simulation to render hand-off
+
+    private final BackgroundLayer mBackground;  // Cached, scrolling level backdrop, render thread only
+    private final File[] mLevelMapFiles = new File[LEVEL_COUNT + 1];  // Long maps streamed instead of a level's tile, opened by start()
     private float mDisplayDensity;  // Display density
     private int mLevel;  // Level
     private float mBackgroundY;  // Background Y position
+    private float mPrevBackgroundY;  // Background Y position before the last update, for render interpolation
     private float mBackgroundSpeed;  // Background speed
-    private long mLastBulletTime;  // Last bullet time
+    private long mNextBulletTime;  // Game time at which the next bullet may be fired
 
     private int mPlayerHP = 3;  // Player HP
 
@@ -68,300 +107,496 @@ public class GamePanel extends SurfaceView implements CollisionListener {
     private boolean mIsGameOver = false;  // Is game over flag
     private boolean mIsGameWin = false;  // Is game win flag
     private boolean mIsGameStart = false;  // Is game start flag
+    private boolean mGameEnded = false;  // Game over or win has been handled, simulation thread only
 
     private final SoundPool mSoundPool;  // Sound pool
     private final int mExplosionSoundId;  // Explosion sound ID
 
     private final Handler mHandler = new Handler();  // Handler
-    // Activate an enemy every 1 second
+    // Activate an enemy every 2 seconds, divided by the level; runs on mTimers
     private final Runnable mActivateEnemyTask = new Runnable() {
         @Override
         public void run() {
             if (mIsGameOver || mIsGameWin) return;
-            if (mEnemy.size() < MAX_ENEMIES) {
-                if (mIsGameStart) spawnEnemy();
-            }
-            mHandler.postDelayed(this, 2000 / mLevel);
+            if (mIsGameStart && mEntities.viewSize(SpriteType.ENEMY) < MAX_ENEMIES) spawnEnemy();
+            mTimers.schedule(this, 2000 / mLevel);
         }
     };
 
     public GamePanel(Context context, @Nullable AttributeSet attrs) {
         super(context, attrs);
         setFocusable(true);
-        mBitmaps = new Bitmap[BitmapType.values().length];
-        mBitmaps[BitmapType.PLAYER.ordinal()] = BitmapFactory.decodeResource(getResources(), R.drawable.player);
-        mBitmaps[BitmapType.ENEMY_BLUE.ordinal()] = BitmapFactory.decodeResource(getResources(), R.drawable.enemy_blue);
-        mBitmaps[BitmapType.ENEMY_GREEN.ordinal()] = BitmapFactory.decodeResource(getResources(), R.drawable.enemy_green);
-        mBitmaps[BitmapType.ENEMY_RED.ordinal()] = BitmapFactory.decodeResource(getResources(), R.drawable.enemy_red);
-        mBitmaps[BitmapType.BULLET.ordinal()] = BitmapFactory.decodeResource(getResources(), R.drawable.bullet);
-        mBitmaps[BitmapType.EXPLOSION.ordinal()] = BitmapFactory.decodeResource(getResources(), R.drawable.explosion);
-        mBitmaps[BitmapType.BACKGROUND_WATER.ordinal()] = BitmapFactory.decodeResource(getResources(), R.drawable.water);
-        mBitmaps[BitmapType.BACKGROUND_DESERT.ordinal()] = BitmapFactory.decodeResource(getResources(), R.drawable.desert);
-        mBitmaps[BitmapType.BACKGROUND_BASE.ordinal()] = BitmapFactory.decodeResource(getResources(), R.drawable.base);
+        // Decoded, usually ahead of time by PageActivity, and shared with every other game of the process
+        mAssets = AssetCache.getInstance(context).acquire();
+        mSheets = mAssets.getSheets();
+
+        // Level 1 has no backdrop; levels 2, 3 and 4 scroll over water, desert and the base
+        mBackground = new BackgroundLayer(new Bitmap[]{null, null,
+                mAssets.getBitmap(BitmapType.BACKGROUND_WATER),
+                mAssets.getBitmap(BitmapType.BACKGROUND_DESERT),
+                mAssets.getBitmap(BitmapType.BACKGROUND_BASE)});
+        mAtlas = mAssets.getAtlas();
+        mSpriteBatch = new SpriteBatch(mAtlas);
 
         mPaint = new Paint();
-        mPlayer = new AnimatedSprite(mBitmaps[BitmapType.PLAYER.ordinal()], 3, 6, SpriteType.PLAYER);
-        mSprites = new CopyOnWriteArrayList<>();
-        mEnemy = new CopyOnWriteArrayList<>();
-        mBullets = new CopyOnWriteArrayList<>();
+        mPlayer = new AnimatedSprite(mSheets[BitmapType.PLAYER.ordinal()], 6, SpriteType.PLAYER);
+        mEntities = new EntityStore(mSheets);
 
         mLevel = 1;
-        mBackgroundY = 0;
+        mBackgroundY = mPrevBackgroundY = 0;
 
-        // Create SoundPool
-        AudioAttributes audioAttributes = new AudioAttributes.Builder().setUsage(AudioAttributes.USAGE_GAME).setContentType(AudioAttributes.CONTENT_TYPE_SONIFICATION).build();
-        mSoundPool = new SoundPool.Builder().setAudioAttributes(audioAttributes).setMaxStreams(2).build();
-
-        // Load sound effect
-        mExplosionSoundId = mSoundPool.load(context, R.raw.explosion, 1);
-
-        // Load all bitmaps at the start of the game
+        mSoundPool = mAssets.getSoundPool();
+        mExplosionSoundId = mAssets.getExplosionSoundId();
     }
 
     protected void start() {
+        applyRenderScale();  // The view has its size now
         mDisplayDensity = getResources().getDisplayMetrics().density;
         mBackgroundSpeed = 50f * mDisplayDensity;
-        mPlayer.setPosition(getWidth() / 2, getHeight() / 2);
-        mPlayer.setScale(mDisplayDensity / 2);
+        openLevelMaps();  // Sized for this surface, and in place before the game threads start
+        mPlayer.setPosition(getWidth() / 2, getHeight() / 2, getWidth(), getHeight());
         mPlayer.setDraggable(true);
-        mSprites.add(mPlayer);
-        mHandler.postDelayed(mActivateEnemyTask, 0);
-        collisionThread = new CollisionThread(mSprites, 100, getWidth(), getHeight(), this);
+        mEntities.clear();
+        mEntities.prewarm(ENTITY_CAPACITY);
+        mTimers.clear();
+        mTimers.schedule(mActivateEnemyTask, 0);
+        if (collisionThread != null) {
+            collisionThread.shutDown();
+        }
+        collisionThread = new CollisionThread(100, getWidth(), getHeight(), mBroadphaseType, mCollisionEvents);
+        collisionThread.setSwept(mSweptCollisions);
+        collisionThread.setProfiler(mProfiler);
         collisionThread.start();
     }
 
+    // Stop the collision thread once the simulation thread, which feeds it, has stopped
+    protected void stopCollisions() {
+        if (collisionThread == null) return;
+        collisionThread.shutDown();
+        try {
+            collisionThread.join();  // Wait for collision thread to end
+        } catch (InterruptedException ie) {
+            throw new RuntimeException("CollisionThread join() interrupted", ie);
+        }
+        collisionThread = null;
+    }
+
     protected void update(float deltaTime) {
         if (mIsGameOver || mIsGameWin) {
             deltaTime = 0;
-            mPlayer.setDragging(false);
-            mHandler.removeCallbacks(mActivateEnemyTask);
-            collisionThread.shutDown();
-            mHandler.postDelayed(() -> {
-                if (getContext() instanceof MainActivity) {
-                    ((MainActivity) getContext()).gameOver(mScore);
-                }
-            }, 3000);
+            if (!mGameEnded) {
+                mGameEnded = true;  // Once, not on every tick after the game ends
+                mPlayer.setDragging(false);
+                collisionThread.shutDown();
+                mHandler.postDelayed(() -> {
+                    if (getContext() instanceof MainActivity) {
+                        ((MainActivity) getContext()).gameOver(mScore);
+                    }
+                }, 3000);
+            }
         }
         // Check if the score has reached the threshold for the next level
         if (mScore >= mNextLevelScore) {
             mLevel++;
             mNextLevelScore += 100;  // Update the score threshold for the next level
         }
-        if (mLevel > 4) {
+        if (mLevel > LEVEL_COUNT) {
             mIsGameWin = true;
         }
+        applyInput(deltaTime);  // Touch samples since the last tick, on this thread
+        mCollisionEvents.drain(this);  // Apply the hits of the previous pass, on this thread
         updateBackground(deltaTime);
+        mPlayer.handleAnimation(mClock.now());
+        mTimers.advance(deltaTime);
+        mEntities.integrate(deltaTime);
+        mEntities.animate(mClock.now());
         fireBullets();
-        updateEnemies(deltaTime);
-        updateBullets(deltaTime);
+        updateEnemies();
+        updateBullets();
+        mEntities.commit();  // Apply this tick's spawns and kills before collisions and render see them
+    }
+
+    // Log entity store, event ring and bitmap decoder usage, so ENTITY_CAPACITY and the ring capacities can be tuned
+    protected void logCapacityStats() {
+        Log.d(TAG, mEntities.toString());
+        Log.d(TAG, mCollisionEvents.toString());
+        Log.d(TAG, mInput.toString());
+        Log.d(TAG, mAssets.getDecoder().toString());
+    }
+
+    // Draw the dragged player where the finger is predicted to be this many milliseconds after the
+    // frame is published, to hide input latency; 0 turns prediction off. Gameplay keeps using the
+    // real touch position.
+    public void setTouchPrediction(int millis) {
+        mPredictionMillis = Math.max(0, millis);
+    }
+
+    // Render into a buffer this fraction of the view size; 1 renders at native resolution. Any thread.
+    public void setRenderScale(float scale) {
+        mRenderScale = Math.max(0.25f, Math.min(scale, 1f));
+        post(this::applyRenderScale);  // SurfaceHolder.setFixedSize() belongs on the UI thread
+    }
+
+    public float getRenderScale() {
+        return mRenderScale;
+    }
+
+    private void applyRenderScale() {
+        float scale = mRenderScale;
+        if (scale >= 1f) {
+            getHolder().setSizeFromLayout();
+        } else if (getWidth() > 0 && getHeight() > 0) {
+            getHolder().setFixedSize(Math.max(1, Math.round(getWidth() * scale)), Math.max(1, Math.round(getHeight() * scale)));
+        }
+    }
+
+    // Apply a quality level; render thread only. Explosions pick it up from the next one spawned.
+    public void setQuality(QualityGovernor.Level quality) {
+        mQuality = quality;
+        boolean filtered = quality == QualityGovernor.Level.HIGH;
+        mSpriteBatch.setFiltering(filtered);
+        mBackground.setFlat(quality == QualityGovernor.Level.LOW);
+    }
+
+    public FrameProfiler getProfiler() {
+        return mProfiler;
+    }
+
+    public GameClock getClock() {
+        return mClock;
+    }
+
+    // Replace the game clock, e.g. with one a test drives by hand; call before the simulation starts
+    public void setClock(GameClock clock) {
+        mClock = clock;
+    }
+
+    // Replace the tiled backdrop of a level with a long map streamed from an image file, or go back to
+    // the tile with null. Call on the UI thread before the surface is created; start() opens the map
+    // once the surface size is known, before the game threads run.
+    public void setLevelMap(int level, @Nullable File map) {
+        mLevelMapFiles[Math.max(0, Math.min(level, LEVEL_COUNT))] = map;
+    }
+
+    // Start a streamer for every level map; a map that cannot be read leaves the level on its tile
+    private void openLevelMaps() {
+        for (int level = 0; level < mLevelMapFiles.length; level++) {
+            MapStreamer map = null;
+            if (mLevelMapFiles[level] != null) {
+                try (InputStream in = new FileInputStream(mLevelMapFiles[level])) {
+                    map = new MapStreamer(in, getWidth(), getHeight());
+                    map.start();
+                } catch (IOException ioe) {
+                    Log.w(TAG, "Unable to stream level map " + mLevelMapFiles[level], ioe);
+                }
+            }
+            mBackground.setLevelMap(level, map);
+        }
+    }
+
+    // Stop background work when the activity goes away and hand the shared assets back to the cache
+    protected void release() {
+        mBackground.release();
+        mAssets.release();
+    }
+
+    // Select the collision broadphase; can be changed while the game is running
+    public void setBroadphaseType(CollisionThread.BroadphaseType type) {
+        mBroadphaseType = type;
+        if (collisionThread != null) {
+            collisionThread.setBroadphaseType(type);
+        }
+    }
+
+    // Enable or disable continuous collision detection, so fast sprites cannot tunnel through each other
+    public void setSweptCollisions(boolean swept) {
+        mSweptCollisions = swept;
+        if (collisionThread != null) {
+            collisionThread.setSwept(swept);
+        }
+    }
+
+    // Wait for the collision pass of the previous tick, so its callbacks never overlap update()
+    protected void awaitCollisions() {
+        collisionThread.awaitPass();
+    }
+
+    // Publish this tick's positions and let the collision thread work on them while we render
+    protected void dispatchCollisions(float deltaTime) {
+        mCollisionSnapshot.clear();
+        mCollisionSnapshot.add(mPlayer, deltaTime);
+        mCollisionSnapshot.addEntities(mEntities, deltaTime);
+        collisionThread.submit(mCollisionSnapshot);
+    }
+
+    // Copy the state of the step that just finished into the back snapshot and hand it to the render thread
+    protected void publishFrame(long timeNanos, long stepNanos) {
+        RenderSnapshot frame = mFrames.getBack();
+        frame.mTimeNanos = timeNanos;
+        frame.mStepNanos = stepNanos;
+        frame.mLevel = mLevel;
+        frame.mScore = mScore;
+        frame.mPlayerHP = mPlayerHP;
+        frame.mIsGameOver = mIsGameOver;
+        frame.mIsGameWin = mIsGameWin;
+        frame.mIsGameStart = mIsGameStart;
+        frame.mBackgroundY = mBackgroundY;
+        frame.mPrevBackgroundY = mPrevBackgroundY;
+        frame.mInputTimeNanos = mLastInputMillis * 1000000L;  // uptimeMillis and nanoTime share the monotonic clock
+        frame.setPlayer(mPlayer);
+        int predictionMillis = mPredictionMillis;
+        if (predictionMillis > 0 && mDraggingSprite == mPlayer && mPredictor.hasSamples()) {
+            mPredictor.predict(SystemClock.uptimeMillis() + predictionMillis, mPredicted);
+            frame.mPlayerBounds.offset(mPredicted[0] - mPlayer.getX(), mPredicted[1] - mPlayer.getY());
+        }
+        frame.setEntities(mEntities);
+        mFrames.publish();
+    }
+
+    // Latest published snapshot, for the render thread only
+    protected RenderSnapshot acquireFrame() {
+        return mFrames.acquire();
     }
 
     private void updateBackground(float deltaTime) {
+        mPrevBackgroundY = mBackgroundY;
         mBackgroundY += mBackgroundSpeed * deltaTime;
-        if (mBackgroundY > mBitmaps[BitmapType.BACKGROUND_WATER.ordinal()].getHeight()) {
-            mBackgroundY -= mBitmaps[BitmapType.BACKGROUND_WATER.ordinal()].getHeight();
+        int period = mBackground.getScrollPeriod(mLevel);
+        if (period > 0 && mBackgroundY > period) {
+            mBackgroundY -= period;
+            mPrevBackgroundY -= period;  // Wrap both, so interpolation stays continuous
         }
     }
 
-    protected void render(@NonNull Canvas canvas) {
-        drawBackgroundBitmap(mLevel, canvas);
+    // Draw a snapshot alpha of the way between its previous and current simulation step.
+    // Runs on the render thread and reads nothing but the snapshot and immutable assets.
+    // The player follows the finger rather than the simulation, so it is drawn where it is.
+    protected void render(@NonNull Canvas canvas, RenderSnapshot frame, float alpha) {
+        // Map the view-sized world onto the buffer, whatever size the last resize left it at
+        canvas.save();
+        canvas.scale(canvas.getWidth() / (float) getWidth(), canvas.getHeight() / (float) getHeight());
+        mBackground.draw(canvas, frame.mLevel, frame.mPrevBackgroundY + (frame.mBackgroundY - frame.mPrevBackgroundY) * alpha, getWidth(), getHeight());
         mPaint.setColor(Color.RED);
         mPaint.setTextSize(24f * mDisplayDensity);
 
-        drawMultilineText(canvas, "Score :" + mScore, 16f, 48f, mPaint, false);
-        drawMultilineText(canvas, "HP :" + mPlayerHP, 16f, 48f * mDisplayDensity, mPaint, false);
+        mScoreText.setValue(frame.mScore);
+        mScoreText.draw(canvas, 16f, 48f, mPaint, false);
+        mHPText.setValue(frame.mPlayerHP);
+        mHPText.draw(canvas, 16f, 48f * mDisplayDensity, mPaint, false);
 
-        for (Sprite sprite : mSprites) {
-            if (sprite instanceof AnimatedSprite) {
-                ((AnimatedSprite) sprite).handleAnimation();
-            }
-            sprite.render(canvas);
+        mSpriteBatch.begin(canvas);
+        if (frame.mPlayerVisible) {
+            RectF bounds = frame.mPlayerBounds;
+            mSpriteBatch.draw(mSheets[BitmapType.PLAYER.ordinal()].getAtlasFrame(frame.mPlayerFrame),
+                    bounds.left, bounds.top, bounds.right, bounds.bottom);
+        }
+        drawEntities(frame, alpha);
+        mSpriteBatch.end();
+
+        if (mProfiler.isOverlayEnabled()) {
+            mPaint.setColor(Color.YELLOW);
+            mPaint.setTextSize(12f * mDisplayDensity);
+            mProfiler.drawOverlay(canvas, mPaint, 16f, 96f * mDisplayDensity, 16f * mDisplayDensity);
         }
 
-        if (mIsGameWin) {
+        if (frame.mIsGameWin) {
             mPaint.setColor(Color.RED);
             mPaint.setTextSize(32f * mDisplayDensity);
-            drawMultilineText(canvas, "You Win", getWidth() / 2, getHeight() / 2, mPaint, true);
-            drawMultilineText(canvas, "Backing to Menu", getWidth() / 2, getHeight() / 2 + 48f * mDisplayDensity, mPaint, true);
-        } else if (mIsGameOver) {
+            mWinText.draw(canvas, getWidth() / 2, getHeight() / 2, mPaint, true);
+            mBackToMenuText.draw(canvas, getWidth() / 2, getHeight() / 2 + 48f * mDisplayDensity, mPaint, true);
+        } else if (frame.mIsGameOver) {
             mPaint.setColor(Color.RED);
             mPaint.setTextSize(32f * mDisplayDensity);
-            drawMultilineText(canvas, "Game Over", getWidth() / 2, getHeight() / 2, mPaint, true);
-            drawMultilineText(canvas, "Backing to Menu", getWidth() / 2, getHeight() / 2 + 48f * mDisplayDensity, mPaint, true);
-        } else if (!mIsGameStart) {
+            mGameOverText.draw(canvas, getWidth() / 2, getHeight() / 2, mPaint, true);
+            mBackToMenuText.draw(canvas, getWidth() / 2, getHeight() / 2 + 48f * mDisplayDensity, mPaint, true);
+        } else if (!frame.mIsGameStart) {
             mPaint.setColor(Color.RED);
             mPaint.setTextSize(48f * mDisplayDensity);
-            drawMultilineText(canvas, "Falcon Strike", getWidth() / 2, getHeight() / 2 / 2, mPaint, true);
+            mTitleText.draw(canvas, getWidth() / 2, getHeight() / 2 / 2, mPaint, true);
             mPaint.setTextSize(32f * mDisplayDensity);
-            drawMultilineText(canvas, "Touch and drag the\nplayer to start", getWidth() / 2, getHeight() / 2, mPaint, true);
+            mStartText.draw(canvas, getWidth() / 2, getHeight() / 2, mPaint, true);
         }
+        canvas.restore();
     }
 
 
+    private void drawEntities(RenderSnapshot frame, float alpha) {
+        for (int i = 0; i < frame.mCount; i++) {
+            float x = frame.mPrevX[i] + (frame.mX[i] - frame.mPrevX[i]) * alpha;
+            float y = frame.mPrevY[i] + (frame.mY[i] - frame.mPrevY[i]) * alpha;
+            float halfWidth = frame.mHalfWidth[i], halfHeight = frame.mHalfHeight[i];
+            mSpriteBatch.draw(mSheets[frame.mSheets[i]].getAtlasFrame(frame.mFrames[i]),
+                    x - halfWidth, y - halfHeight, x + halfWidth, y + halfHeight);
+        }
+    }
+
     @SuppressLint("ClickableViewAccessibility")
     @Override
     public boolean onTouchEvent(MotionEvent event) {
-        switch (event.getAction()) {
+        long startNanos = mProfiler.begin(FrameProfiler.Phase.INPUT);
+        try {
+            return handleTouch(event);
+        } finally {
+            mProfiler.end(FrameProfiler.Phase.INPUT, startNanos);
+        }
+    }
+
+    // Queue the samples of the event, oldest first; the simulation thread applies them at its next tick
+    private boolean handleTouch(MotionEvent event) {
+        switch (event.getActionMasked()) {
             case MotionEvent.ACTION_DOWN:
-                for (Sprite sprite : mSprites) {
-                    if (sprite.isDraggable() && sprite.isTouched(event)) {
-                        mDraggingSprite = (AnimatedSprite) sprite;
-                        mDraggingSprite.setDragging(true);
-                        return true;
-                    }
-                }
+                mInput.offer(InputEventRing.ACTION_DOWN, event.getX(), event.getY(), event.getEventTime());
                 break;
             case MotionEvent.ACTION_MOVE:
+                for (int h = 0; h < event.getHistorySize(); h++) {
+                    mInput.offer(InputEventRing.ACTION_MOVE, event.getHistoricalX(h), event.getHistoricalY(h), event.getHistoricalEventTime(h));
+                }
+                mInput.offer(InputEventRing.ACTION_MOVE, event.getX(), event.getY(), event.getEventTime());
+                break;
+            case MotionEvent.ACTION_UP:
+            case MotionEvent.ACTION_CANCEL:
+                mInput.offer(InputEventRing.ACTION_UP, event.getX(), event.getY(), event.getEventTime());
+                break;
+        }
+        return true;
+    }
+
+    // Apply one queued touch sample; simulation thread only
+    @Override
+    public void onTouch(int action, float x, float y, long eventTimeMillis) {
+        mLastInputMillis = eventTimeMillis;
+        switch (action) {
+            case InputEventRing.ACTION_DOWN:
+                mPredictor.reset();
+                if (mPlayer.isDraggable() && mPlayer.isTouched(x, y)) {
+                    mDraggingSprite = mPlayer;
+                    mDraggingSprite.setDragging(true);
+                }
+                break;
+            case InputEventRing.ACTION_MOVE:
                 if (mDraggingSprite != null) {
                     if (!mIsGameStart) {
                         mIsGameStart = true;
                     }
-                    mDraggingSprite.setPosition(event.getX(), event.getY());
+                    mDraggingSprite.setPosition(x, y, getWidth(), getHeight());
+                    mPredictor.addSample(mDraggingSprite.getX(), mDraggingSprite.getY(), eventTimeMillis);
                 }
                 break;
-            case MotionEvent.ACTION_UP:
+            case InputEventRing.ACTION_UP:
+                mPredictor.reset();
                 if (mDraggingSprite != null) {
                     mDraggingSprite.setDragging(false);
                     mDraggingSprite = null;
                 }
                 break;
         }
-        return true;
+    }
+
+    // Apply every touch sample queued since the last tick. The player follows the samples in order, and
+    // its speed is set to the distance they covered this tick, so the swept collision test sees the
+    // whole drag path rather than just where the finger ended up.
+    private void applyInput(float deltaTime) {
+        float startX = mPlayer.getX(), startY = mPlayer.getY();
+        mInput.drain(this);
+        if (deltaTime > 0) {
+            mPlayer.setSpeed((mPlayer.getX() - startX) / deltaTime, (mPlayer.getY() - startY) / deltaTime);
+        } else {
+            mPlayer.setSpeed(0, 0);
+        }
     }
 
     public void spawnEnemy() {
-        AnimatedSprite enemy;
+        BitmapType bitmap;
         float speed;
         int enemyType = (int) (Math.random() * mLevel) + 1;
         switch (enemyType) {
             case 2:
-                // Use the preloaded bitmap instead of decoding it from resources
-                enemy = new AnimatedSprite(mBitmaps[BitmapType.ENEMY_BLUE.ordinal()], 3, 6, SpriteType.ENEMY);
+                bitmap = BitmapType.ENEMY_BLUE;
                 speed = 150 * mDisplayDensity * mLevel;
                 break;
             case 3:
-                // Use the preloaded bitmap instead of decoding it from resources
-                enemy = new AnimatedSprite(mBitmaps[BitmapType.ENEMY_GREEN.ordinal()], 3, 6, SpriteType.ENEMY);
+                bitmap = BitmapType.ENEMY_GREEN;
                 speed = 200 * mDisplayDensity * mLevel;
                 break;
             default:
-                // Use the preloaded bitmap instead of decoding it from resources
-                enemy = new AnimatedSprite(mBitmaps[BitmapType.ENEMY_RED.ordinal()], 3, 6, SpriteType.ENEMY);
+                bitmap = BitmapType.ENEMY_RED;
                 speed = 100 * mDisplayDensity * mLevel;
                 break;
         }
-        enemy.setSpeed(0, speed);
-        enemy.setPosition((float) Math.random() * (getWidth() - enemy.getBounds().width()), -enemy.getBounds().height());
-        mEnemy.add(enemy);
-        mSprites.add(enemy);
+        int enemy = mEntities.indexOf(mEntities.spawn(SpriteType.ENEMY, bitmap.ordinal(), 6, 0, 0, 0, speed));
+        placeAtTop(enemy);
+    }
+
+    // Put an enemy at a random column above the screen; place() clamps it to the top edge like setPosition() does
+    private void placeAtTop(int enemy) {
+        float width = mEntities.getWidth(enemy);
+        mEntities.place(enemy, (float) Math.random() * (getWidth() - width), -mEntities.getHeight(enemy), getWidth(), getHeight());
     }
 
     @Override
-    public void onPlayerEnemyCollision(AnimatedSprite player, AnimatedSprite enemy) {
-        if (System.currentTimeMillis() - mLastHitTime > PLAYER_INVINCIBLE_TIME) {
-            player.startBlinking(PLAYER_INVINCIBLE_TIME, 200);
-            spawnExplosion(player);
-            mPlayerHP--;
-            mLastHitTime = System.currentTimeMillis();
-            if (mPlayerHP <= 0) {
-                mIsGameOver = true;
-            }
-            mEnemy.remove(enemy);
-            mSprites.remove(enemy);
+    public boolean onPlayerEnemyCollision(int enemy) {
+        if (mClock.now() < mInvincibleUntil || mEntities.indexOf(enemy) < 0) return false;  // Invincible, or enemy destroyed since the pass
+        mPlayer.startBlinking(mTimers, PLAYER_INVINCIBLE_TIME, 200);
+        spawnExplosion(mPlayer.getX(), mPlayer.getY());
+        mPlayerHP--;
+        mInvincibleUntil = mClock.now() + PLAYER_INVINCIBLE_TIME;
+        if (mPlayerHP <= 0) {
+            mIsGameOver = true;
         }
+        mEntities.kill(enemy);
+        return true;
     }
 
     @Override
-    public void onBulletEnemyCollision(AnimatedSprite bullet, AnimatedSprite enemy) {
-        spawnExplosion(enemy);
+    public boolean onBulletEnemyCollision(int bullet, int enemy) {
+        int enemyIndex = mEntities.indexOf(enemy);
+        if (enemyIndex < 0 || mEntities.indexOf(bullet) < 0) return false;  // Destroyed since the pass that found this hit
+        spawnExplosion(mEntities.getX(enemyIndex), mEntities.getY(enemyIndex));
         mScore += 10;
-        mBullets.remove(bullet);
-        mSprites.remove(bullet);
-        mEnemy.remove(enemy);
-        mSprites.remove(enemy);
+        mEntities.kill(bullet);
+        mEntities.kill(enemy);
+        return true;
     }
 
-    private void spawnExplosion(AnimatedSprite sprite) {
-        AnimatedSprite explosion = new AnimatedSprite(mBitmaps[BitmapType.EXPLOSION.ordinal()], 3, 6, SpriteType.EXPLOSION);
-        explosion.setPosition(sprite.getX(), sprite.getY());
-        explosion.setSpeed(0, 0);
-        mSprites.add(explosion);
+    private void spawnExplosion(float x, float y) {
         mSoundPool.play(mExplosionSoundId, 1, 1, 1, 0, 1);
-        mHandler.postDelayed(new Runnable() {
-            @Override
-            public void run() {
-                mSprites.remove(explosion);
-            }
-        }, 3000);
+        int quality = mQuality.ordinal();
+        int explosions = mEntities.viewSize(SpriteType.EXPLOSION) + mEntities.stagedSize(SpriteType.EXPLOSION);  // Including this tick's hits
+        if (explosions >= MAX_EXPLOSIONS[quality]) return;  // Over the effect cap of this quality level
+        int explosion = mEntities.indexOf(mEntities.spawn(SpriteType.EXPLOSION, BitmapType.EXPLOSION.ordinal(), 6, 0, 0, 0, 0));
+        mEntities.place(explosion, x, y, getWidth(), getHeight());
+        mEntities.setTimeToLive(explosion, EXPLOSION_TIMES[quality]);
     }
 
 
-    private void updateEnemies(float deltaTime) {
-        for (Sprite enemy : mEnemy) {
-            enemy.move(deltaTime);
-            if (enemy.getY() > getHeight()) {
-                enemy.setPosition((float) Math.random() * (getWidth() - enemy.getBounds().width()), -enemy.getBounds().height());
+    // Enemies that leave the bottom of the screen come back at the top
+    private void updateEnemies() {
+        int[] enemies = mEntities.view(SpriteType.ENEMY);
+        for (int k = mEntities.viewSize(SpriteType.ENEMY) - 1; k >= 0; k--) {
+            int enemy = enemies[k];
+            if (mEntities.getY(enemy) > getHeight()) {
+                placeAtTop(enemy);
             }
         }
     }
 
     private void fireBullets() {
-        if (System.currentTimeMillis() - mLastBulletTime > BULLET_INTERVAL && mPlayer.isDragging()) {
-            mLastBulletTime = System.currentTimeMillis();
-            AnimatedSprite bullet = new AnimatedSprite(mBitmaps[BitmapType.BULLET.ordinal()], 3, 6, SpriteType.BULLET);
-            bullet.setPosition(mPlayer.getX(), mPlayer.getY() - mPlayer.getBounds().height());
-            bullet.setSpeed(0, BULLET_SPEED * mDisplayDensity);
-            mBullets.add(bullet);
-            mSprites.add(bullet);
-        }
-    }
-
-
-    private void updateBullets(float deltaTime) {
-        //更新子彈位置
-        for (Sprite bullet : mBullets) {
-            bullet.move(deltaTime);
-            //子彈超出螢幕
-            if (bullet.getY() < 0) {
-                mBullets.remove(bullet);
-                mSprites.remove(bullet);
-            }
+        if (mClock.now() >= mNextBulletTime && mPlayer.isDragging()) {
+            mNextBulletTime = mClock.now() + BULLET_INTERVAL;
+            int bullet = mEntities.indexOf(mEntities.spawn(SpriteType.BULLET, BitmapType.BULLET.ordinal(), 6, 0, 0, 0, BULLET_SPEED * mDisplayDensity));
+            mEntities.place(bullet, mPlayer.getX(), mPlayer.getY() - mPlayer.getBounds().height(), getWidth(), getHeight());
         }
     }
 
 
-    protected void drawBackgroundBitmap(int mLevel, Canvas canvas) {
-        switch (mLevel - 1) {
-            case 1:
-                mBackgroundBitmap = mBitmaps[BitmapType.BACKGROUND_WATER.ordinal()];
-                break;
-            case 2:
-                mBackgroundBitmap = mBitmaps[BitmapType.BACKGROUND_DESERT.ordinal()];
-                break;
-            case 3:
-                mBackgroundBitmap = mBitmaps[BitmapType.BACKGROUND_BASE.ordinal()];
-                break;
-        }
-
-        if (mBackgroundBitmap != null) {
-            int width = getWidth();
-            int height = getHeight();
-            for (int y = (int) mBackgroundY - mBackgroundBitmap.getHeight(); y < height; y += mBackgroundBitmap.getHeight()) {
-                for (int x = 0; x < width; x += mBackgroundBitmap.getWidth()) {
-                    canvas.drawBitmap(mBackgroundBitmap, x, y, null);
-                }
+    private void updateBullets() {
+        //子彈超出螢幕
+        int[] bullets = mEntities.view(SpriteType.BULLET);
+        for (int k = mEntities.viewSize(SpriteType.BULLET) - 1; k >= 0; k--) {
+            int bullet = bullets[k];
+            if (mEntities.getY(bullet) < 0) {
+                mEntities.killAt(bullet);
             }
         }
     }
-
-    protected void drawMultilineText(Canvas canvas, String text, float x, float y, Paint paint, boolean centerText) {
-        Rect textBounds = new Rect();
-        float yOffset = 0f;
-        for (String line : text.split("\n")) {
-            paint.getTextBounds(line, 0, line.length(), textBounds);
-            yOffset += textBounds.height();
-            float adjustedX = centerText ? x - textBounds.width() / 2 : x;
-            canvas.drawText(line, adjustedX, y + yOffset, mPaint);
-        }
-    }
 }
\ No newline at end of file
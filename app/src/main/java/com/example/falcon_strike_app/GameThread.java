@@ -1,26 +1,77 @@
 package com.example.falcon_strike_app;
 
 import android.graphics.Canvas;
+import android.os.Build;
 import android.os.Looper;
 import android.util.Log;
+import android.view.Display;
+import android.view.Surface;
 
 public class GameThread extends Thread {
     private static final String TAG = "GameThread";
-    private static final long ONE_SECOND_NANOS = 1000000000L;
-    private static final float ONE_BILLION_FLOAT = 1000000000.0f;
-    private static final long TARGET_FRAME_RATE = ONE_SECOND_NANOS / 60 * ONE_SECOND_NANOS;
 
     private final GamePanel mGamePanel;
     private final Object mStartLock;
 
     private volatile GameHandler mHandler;
     private boolean mReady;
-
-    private long mPrevTimeNanos;
+    private long mReportedInputNanos;  // Newest touch sample whose latency was recorded
+    private final FramePacer mPacer;  // Picks the vsyncs to draw on, render thread only once started
+    private final QualityGovernor mGovernor;  // Trades resolution, then quality, then frame rate, for frame time
+    private ResolutionScaler mScaler;  // Stepped by mGovernor, or null for a fixed resolution
+    private int mFramesSinceDisplayCheck;
 
     public GameThread(GamePanel gamePanel) {
         this.mGamePanel = gamePanel;
         this.mStartLock = new Object();
+        Display display = gamePanel.getDisplay();
+        float refreshRate = display != null ? display.getRefreshRate() : 60f;
+        mPacer = new FramePacer(peakRefreshRate(display, refreshRate), refreshRate);
+        mGovernor = new QualityGovernor(mPacer);
+    }
+
+    // Highest refresh rate among the display modes with the current resolution
+    private static float peakRefreshRate(Display display, float refreshRate) {
+        if (display == null) return refreshRate;
+        Display.Mode current = display.getMode();
+        float peak = refreshRate;
+        for (Display.Mode mode : display.getSupportedModes()) {
+            if (mode.getPhysicalWidth() == current.getPhysicalWidth() && mode.getPhysicalHeight() == current.getPhysicalHeight()) {
+                peak = Math.max(peak, mode.getRefreshRate());
+            }
+        }
+        return peak;
+    }
+
+    // Let frame cost pick the render resolution; call before start()
+    public void setDynamicResolution(boolean dynamic) {
+        mScaler = dynamic ? new ResolutionScaler() : null;
+        mGovernor.setResolutionScaler(mScaler);
+    }
+
+    // Configure before start()
+    public FramePacer getPacer() {
+        return mPacer;
+    }
+
+    // Ask the system for the pacer's frame rate; the display may switch to a matching mode
+    private void requestFrameRate() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+            Surface surface = mGamePanel.getHolder().getSurface();
+            if (surface.isValid()) {
+                surface.setFrameRate(mPacer.getFrameRate(), Surface.FRAME_RATE_COMPATIBILITY_FIXED_SOURCE);
+            }
+        }
+    }
+
+    // Pick up display mode changes, our own setFrameRate() requests included, about once a second
+    private void checkDisplay() {
+        if (++mFramesSinceDisplayCheck < mPacer.getRefreshRate()) return;
+        mFramesSinceDisplayCheck = 0;
+        Display display = mGamePanel.getDisplay();
+        if (display != null) {
+            mPacer.setRefreshRate(display.getRefreshRate());
+        }
     }
 
     public void waitUntilReady() {
@@ -33,26 +84,12 @@ public class GameThread extends Thread {
         }
     }
 
+    // Draw the latest simulation snapshot. The simulation runs on SimulationThread, so nothing here waits for it.
     public void doFrame(long timeStampNanos) {
-        // Figure out time delta based on the timestamps
-        long intervalNanos;
-        if (mPrevTimeNanos == 0) {
-            intervalNanos = 0;
-        } else {
-            intervalNanos = timeStampNanos - mPrevTimeNanos;
-            if (intervalNanos > ONE_SECOND_NANOS) {
-                intervalNanos = 0;
-            }
-        }
-        mPrevTimeNanos = timeStampNanos;
-        mGamePanel.update(intervalNanos / ONE_BILLION_FLOAT);
-
-        // If we spent too much time updating, skip a frame
-        long deltaTimeStamp = System.nanoTime() - timeStampNanos;
-        if (deltaTimeStamp > TARGET_FRAME_RATE) {
-            Log.d(TAG, "Last frame spent " + deltaTimeStamp + "us, skipping render");
-            return;
-        }
+        checkDisplay();
+        if (!mPacer.shouldRender(timeStampNanos, System.nanoTime())) return;  // Late, or between the frames of a lower rate
+        RenderSnapshot frame = mGamePanel.acquireFrame();
+        float alpha = frame.alphaAt(timeStampNanos);
 
         // Lock the canvas and call render(Canvas)
         Canvas canvas = mGamePanel.getHolder().lockCanvas();
@@ -60,12 +97,35 @@ public class GameThread extends Thread {
             Log.d(TAG, "Unable to lock canvas, skipping render");
             return;
         }
+        long frameStartNanos = System.nanoTime();  // After lockCanvas(), which waits on the compositor for a free buffer
+        FrameProfiler profiler = mGamePanel.getProfiler();
+        long startNanos = profiler.begin(FrameProfiler.Phase.RENDER);
         try {
-            synchronized (mGamePanel.getHolder()) {
-                mGamePanel.render(canvas);
-            }
+            mGamePanel.render(canvas, frame, alpha);
         } finally {
+            profiler.end(FrameProfiler.Phase.RENDER, startNanos);
+            startNanos = profiler.begin(FrameProfiler.Phase.POST);
             mGamePanel.getHolder().unlockCanvasAndPost(canvas);
+            profiler.end(FrameProfiler.Phase.POST, startNanos);
+        }
+        long frameNanos = System.nanoTime() - frameStartNanos;
+        switch (mGovernor.onFrameDrawn(frameNanos)) {
+            case RESOLUTION:
+                mGamePanel.setRenderScale(mScaler.getScale());
+                break;
+            case QUALITY:
+                mGamePanel.setQuality(mGovernor.getLevel());
+                break;
+            case FRAME_RATE:
+                requestFrameRate();
+                break;
+            default:
+                break;
+        }
+        if (frame.mInputTimeNanos > mReportedInputNanos) {
+            // First frame to show this touch sample: it reaches the display with this post
+            profiler.record(FrameProfiler.Phase.LATENCY, System.nanoTime() - frame.mInputTimeNanos);
+            mReportedInputNanos = frame.mInputTimeNanos;
         }
     }
 
@@ -81,6 +141,7 @@ public class GameThread extends Thread {
     public void run() {
         Looper.prepare();
         mHandler = new GameHandler(Looper.myLooper(), this);
+        requestFrameRate();
         synchronized (mStartLock) {
             mReady = true;
             mStartLock.notify();
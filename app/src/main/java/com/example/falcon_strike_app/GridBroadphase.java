@@ -0,0 +1,130 @@
+package com.example.falcon_strike_app;
+
+// Uniform grid broadphase in flat int arrays. A pair is reported only from the cell that holds the
+// top-left corner of its overlap, and the buffers are reused once grown, so a pass allocates nothing.
+public class GridBroadphase implements Broadphase {
+
+    private final int mCellSize;  // Width and height of one cell in pixels
+    private final float mInvCellSize;
+    private final int mColumns, mRows;  // Grid dimensions in cells
+
+    private final int[] mCellStart;  // First slot of each cell in mCellEntries, plus one sentinel
+    private final int[] mCellCursor;  // Write cursor per cell while filling
+    private int[] mCellEntries = new int[0];  // Entity indices bucketed by cell
+
+    private int[] mMinCellX = new int[0], mMinCellY = new int[0];  // Cell range covered by each entity
+    private int[] mMaxCellX = new int[0], mMaxCellY = new int[0];
+
+    private final PairBuffer mPairs = new PairBuffer();  // Overlapping pairs found by the last pass
+
+    public GridBroadphase(int cellSize, int worldWidth, int worldHeight) {
+        if (cellSize <= 0) {
+            throw new IllegalArgumentException("cellSize must be positive: " + cellSize);
+        }
+        mCellSize = cellSize;
+        mInvCellSize = 1f / cellSize;
+        mColumns = Math.max(1, (worldWidth + cellSize - 1) / cellSize);
+        mRows = Math.max(1, (worldHeight + cellSize - 1) / cellSize);
+        mCellStart = new int[mColumns * mRows + 1];
+        mCellCursor = new int[mColumns * mRows];
+    }
+
+    @Override
+    public int findPairs(float[] left, float[] top, float[] right, float[] bottom, int count) {
+        ensureEntityCapacity(count);
+        int cells = mColumns * mRows;
+        int[] cellStart = mCellStart;
+        for (int c = 0; c <= cells; c++) {
+            cellStart[c] = 0;
+        }
+
+        // Count how many entities land in each cell
+        int references = 0;
+        for (int i = 0; i < count; i++) {
+            int minX = cellX(left[i]), maxX = cellX(right[i]);
+            int minY = cellY(top[i]), maxY = cellY(bottom[i]);
+            mMinCellX[i] = minX;
+            mMaxCellX[i] = maxX;
+            mMinCellY[i] = minY;
+            mMaxCellY[i] = maxY;
+            for (int y = minY; y <= maxY; y++) {
+                for (int x = minX; x <= maxX; x++) {
+                    cellStart[y * mColumns + x + 1]++;
+                }
+            }
+            references += (maxX - minX + 1) * (maxY - minY + 1);
+        }
+
+        // Prefix sum turns counts into start offsets
+        for (int c = 0; c < cells; c++) {
+            cellStart[c + 1] += cellStart[c];
+            mCellCursor[c] = cellStart[c];
+        }
+        if (mCellEntries.length < references) {
+            mCellEntries = new int[Math.max(references, mCellEntries.length * 2)];
+        }
+
+        // Scatter entity indices into their cells, in index order
+        for (int i = 0; i < count; i++) {
+            for (int y = mMinCellY[i]; y <= mMaxCellY[i]; y++) {
+                for (int x = mMinCellX[i]; x <= mMaxCellX[i]; x++) {
+                    mCellEntries[mCellCursor[y * mColumns + x]++] = i;
+                }
+            }
+        }
+
+        mPairs.clear();
+        for (int y = 0; y < mRows; y++) {
+            for (int x = 0; x < mColumns; x++) {
+                int c = y * mColumns + x;
+                for (int p = cellStart[c]; p < cellStart[c + 1]; p++) {
+                    int a = mCellEntries[p];
+                    for (int q = p + 1; q < cellStart[c + 1]; q++) {
+                        int b = mCellEntries[q];
+                        if (left[a] < right[b] && left[b] < right[a]
+                                && top[a] < bottom[b] && top[b] < bottom[a]
+                                // Only the cell holding the overlap's top-left corner reports the pair
+                                && cellX(Math.max(left[a], left[b])) == x
+                                && cellY(Math.max(top[a], top[b])) == y) {
+                            mPairs.add(a, b);
+                        }
+                    }
+                }
+            }
+        }
+        return mPairs.size();
+    }
+
+    @Override
+    public int[] getPairs() {
+        return mPairs.getPairs();
+    }
+
+    @Override
+    public int getPairCount() {
+        return mPairs.size();
+    }
+
+    public int getCellSize() {
+        return mCellSize;
+    }
+
+    private int cellX(float x) {
+        int cell = (int) Math.floor(x * mInvCellSize);
+        return cell < 0 ? 0 : (cell >= mColumns ? mColumns - 1 : cell);
+    }
+
+    private int cellY(float y) {
+        int cell = (int) Math.floor(y * mInvCellSize);
+        return cell < 0 ? 0 : (cell >= mRows ? mRows - 1 : cell);
+    }
+
+    private void ensureEntityCapacity(int count) {
+        if (mMinCellX.length >= count) return;
+        int capacity = Math.max(count, mMinCellX.length * 2);
+        mMinCellX = new int[capacity];
+        mMinCellY = new int[capacity];
+        mMaxCellX = new int[capacity];
+        mMaxCellY = new int[capacity];
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.falcon_strike_app;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+
+// HUD text whose layout is measured once and redrawn without allocating; a label's number is written
+// into the text's char[] in place.
+public class HudText {
+    private static final int MAX_DIGITS = 11;  // Enough for any int, sign included
+
+    private final char[] mChars;
+    private final int mPrefixLength;  // Fixed label in front of the number
+    private int mLength;
+    private int mValue;
+    private boolean mHasValue;  // Whether a number follows the label
+
+    private int mLineCount;
+    private final int[] mLineStart, mLineEnd;
+    private final float[] mLineWidth, mLineHeight;  // Measured bounds of each line
+    private float mMeasuredSize = -1f;  // Text size the layout was measured at, or -1 if it must be measured
+    private final Rect mBounds = new Rect();
+
+    // Fixed text, possibly several lines
+    public HudText(String text) {
+        this(text, false);
+    }
+
+    // A label followed by a number, set with setValue()
+    public HudText(String label, boolean withValue) {
+        mPrefixLength = label.length();
+        mChars = new char[mPrefixLength + (withValue ? MAX_DIGITS : 0)];
+        label.getChars(0, mPrefixLength, mChars, 0);
+        mLength = mPrefixLength;
+        int lines = 1;
+        for (int i = 0; i < mPrefixLength; i++) {
+            if (mChars[i] == '\n') lines++;
+        }
+        mLineStart = new int[lines];
+        mLineEnd = new int[lines];
+        mLineWidth = new float[lines];
+        mLineHeight = new float[lines];
+        if (withValue) {
+            setValue(0);
+        } else {
+            splitLines();
+        }
+    }
+
+    // Render thread: write the number after the label; the layout is measured again only if the value changed
+    public void setValue(int value) {
+        if (mHasValue && value == mValue) return;
+        mValue = value;
+        mHasValue = true;
+        long remaining = Math.abs((long) value);
+        int digits = 1;
+        for (long v = remaining / 10; v > 0; v /= 10) {
+            digits++;
+        }
+        int start = mPrefixLength;
+        if (value < 0) {
+            mChars[start++] = '-';
+        }
+        for (int i = start + digits - 1; i >= start; i--) {
+            mChars[i] = (char) ('0' + remaining % 10);
+            remaining /= 10;
+        }
+        mLength = start + digits;
+        splitLines();
+    }
+
+    private void splitLines() {
+        mLineCount = 0;
+        int start = 0;
+        for (int i = 0; i <= mLength; i++) {
+            if (i == mLength || mChars[i] == '\n') {
+                mLineStart[mLineCount] = start;
+                mLineEnd[mLineCount] = i;
+                mLineCount++;
+                start = i + 1;
+            }
+        }
+        mMeasuredSize = -1f;
+    }
+
+    // Render thread: draw the lines below y, each at x or centred on it, as the old drawMultilineText did
+    public void draw(Canvas canvas, float x, float y, Paint paint, boolean centerText) {
+        if (paint.getTextSize() != mMeasuredSize) {
+            measure(paint);
+        }
+        float yOffset = 0f;
+        for (int line = 0; line < mLineCount; line++) {
+            yOffset += mLineHeight[line];
+            float adjustedX = centerText ? x - mLineWidth[line] / 2 : x;
+            canvas.drawText(mChars, mLineStart[line], mLineEnd[line] - mLineStart[line], adjustedX, y + yOffset, paint);
+        }
+    }
+
+    private void measure(Paint paint) {
+        for (int line = 0; line < mLineCount; line++) {
+            paint.getTextBounds(mChars, mLineStart[line], mLineEnd[line] - mLineStart[line], mBounds);
+            mLineWidth[line] = mBounds.width();
+            mLineHeight[line] = mBounds.height();
+        }
+        mMeasuredSize = paint.getTextSize();
+    }
+}
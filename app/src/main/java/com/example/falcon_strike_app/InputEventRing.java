@@ -0,0 +1,86 @@
+package com.example.falcon_strike_app;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Bounded single-producer/single-consumer queue of touch samples from the UI thread to the simulation
+// thread, which applies them at the start of its next tick.
+public class InputEventRing {
+
+    // Called for each sample by drain(), in the order the samples were offered
+    public interface Consumer {
+        void onTouch(int action, float x, float y, long eventTimeMillis);
+    }
+
+    public static final int ACTION_DOWN = 0;
+    public static final int ACTION_MOVE = 1;
+    public static final int ACTION_UP = 2;
+
+    private static final int RESERVED_SLOTS = 2;  // Kept for a down and an up; moves cannot take them
+
+    private final int[] mActions;
+    private final float[] mX, mY;
+    private final long[] mTimes;  // Event time, on the SystemClock.uptimeMillis() clock
+    private final int mMask;
+
+    private final AtomicLong mHead = new AtomicLong();  // Next sample to read, advanced by the consumer
+    private final AtomicLong mTail = new AtomicLong();  // Next sample to write, advanced by the producer
+    private long mCachedHead;  // Producer's last view of mHead, refreshed only when the ring looks full
+
+    // Metrics, each written by one thread only
+    private volatile long mOffered;  // Producer
+    private volatile long mOverflows;  // Producer
+
+    public InputEventRing(int capacity) {
+        if (Integer.bitCount(capacity) != 1 || capacity <= RESERVED_SLOTS) {
+            throw new IllegalArgumentException("Capacity must be a power of two above " + RESERVED_SLOTS + ": " + capacity);
+        }
+        mActions = new int[capacity];
+        mX = new float[capacity];
+        mY = new float[capacity];
+        mTimes = new long[capacity];
+        mMask = capacity - 1;
+    }
+
+    // Producer side, UI thread. Returns false, and counts an overflow, if the ring is full, or for a move, if only
+    // the reserved slots are left.
+    public boolean offer(int action, float x, float y, long eventTimeMillis) {
+        long tail = mTail.get();
+        int needed = action == ACTION_MOVE ? RESERVED_SLOTS + 1 : 1;
+        if (mActions.length - (tail - mCachedHead) < needed) {
+            mCachedHead = mHead.get();
+            if (mActions.length - (tail - mCachedHead) < needed) {
+                mOverflows++;
+                return false;
+            }
+        }
+        int index = (int) tail & mMask;
+        mActions[index] = action;
+        mX[index] = x;
+        mY[index] = y;
+        mTimes[index] = eventTimeMillis;
+        mTail.lazySet(tail + 1);  // Publishes the sample written above
+        mOffered++;
+        return true;
+    }
+
+    // Consumer side, simulation thread. Reports every pending sample to the consumer and returns how many there were.
+    public int drain(Consumer consumer) {
+        long head = mHead.get();
+        long tail = mTail.get();
+        for (long i = head; i < tail; i++) {
+            int index = (int) i & mMask;
+            consumer.onTouch(mActions[index], mX[index], mY[index], mTimes[index]);
+        }
+        mHead.lazySet(tail);
+        return (int) (tail - head);
+    }
+
+    public long getOverflowCount() {
+        return mOverflows;
+    }
+
+    @Override
+    public String toString() {
+        return "InputEventRing: capacity " + mActions.length + ", offered " + mOffered + ", overflows " + mOverflows;
+    }
+}
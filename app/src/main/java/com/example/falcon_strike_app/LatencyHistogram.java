@@ -0,0 +1,85 @@
+package com.example.falcon_strike_app;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Fixed-size log-linear histogram of durations in nanoseconds, precise to 1/SUB_BUCKETS (about 6%).
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 40;  // Values are clamped to 2^40 ns, about 18 minutes
+    public static final long MAX_VALUE = (1L << MAX_EXPONENT) - 1;
+    private static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray mCounts = new AtomicLongArray(BUCKETS);
+    private volatile long mTotal;
+    private volatile long mMax;
+
+    // One writer thread only; readers on other threads may see a slightly stale count
+    public void record(long nanos) {
+        long value = Math.max(0, Math.min(nanos, MAX_VALUE));
+        int bucket = bucketOf(value);
+        mCounts.lazySet(bucket, mCounts.get(bucket) + 1);  // Single writer, so no atomic add needed
+        if (value > mMax) {
+            mMax = value;
+        }
+        mTotal++;
+    }
+
+    // Values below SUB_BUCKETS have a bucket each; above that, the exponent picks the row and the
+    // SUB_BUCKET_BITS bits below the leading one pick the bucket within it
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    // Largest value that falls into a bucket
+    static long highestValueOf(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    public long getCount() {
+        return mTotal;
+    }
+
+    public long getMax() {
+        return mMax;
+    }
+
+    // Value at or below which the given percentage of the recorded values lie, to bucket precision
+    public long getPercentile(double percentile) {
+        long total = mTotal;
+        if (total == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100.0));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += mCounts.get(bucket);
+            if (seen >= rank) return Math.min(highestValueOf(bucket), mMax);
+        }
+        return mMax;
+    }
+
+    // Only safe while nothing is recording
+    public void reset() {
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            mCounts.set(bucket, 0);
+        }
+        mTotal = 0;
+        mMax = 0;
+    }
+
+    // One "highest value in bucket,count" line per non-empty bucket
+    public void writeBuckets(Writer out) throws IOException {
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            long count = mCounts.get(bucket);
+            if (count == 0) continue;
+            out.write(highestValueOf(bucket) + "," + count + "\n");
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.example.falcon_strike_app;
 import android.content.Intent;
 import android.media.MediaPlayer;
 import android.os.Bundle;
+import android.util.Log;
 import android.view.Choreographer;
 import android.view.SurfaceHolder;
 
@@ -11,11 +12,30 @@ import androidx.appcompat.app.AppCompatActivity;
 
 import com.example.falconstrikeapp.R;
 
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+
 public class MainActivity extends AppCompatActivity implements SurfaceHolder.Callback,
         Choreographer.FrameCallback {
+    private static final String TAG = "MainActivity";
+    // Intent extras for profiling runs, e.g. from CI:
+    // adb shell am start -n com.example.falconstrikeapp/com.example.falcon_strike_app.MainActivity --ez frame_timing_dump true
+    public static final String EXTRA_PROFILER_OVERLAY = "profiler_overlay";  // Show frame phase percentiles on screen
+    public static final String EXTRA_FRAME_TIMING_DUMP = "frame_timing_dump";  // Write the histograms to a file when the game ends
+    public static final String EXTRA_TOUCH_PREDICTION = "touch_prediction_ms";  // Draw the dragged player this far ahead
+    public static final String EXTRA_MAX_FRAME_RATE = "max_frame_rate";  // Cap the frame rate, e.g. 60 on a 120 Hz display
+    public static final String EXTRA_RENDER_SCALE = "render_scale";  // Fixed render resolution, as a fraction of native
+    public static final String EXTRA_DYNAMIC_RESOLUTION = "dynamic_resolution";  // Let frame cost pick the render resolution
+    public static final String EXTRA_BROADPHASE = "broadphase";  // Collision broadphase, "grid" or "sweep_and_prune"
+    public static final String EXTRA_LEVEL_MAP = "level_map_";  // level_map_3 names an image in getExternalFilesDir() streamed as level 3's backdrop
+    private static final String FRAME_TIMING_FILE = "frame_timing.csv";  // In getExternalFilesDir(), readable with adb pull
 
     private GamePanel mGamePanel;  // Define game panel
-    private GameThread mGameThread;  // Define game thread
+    private GameThread mGameThread;  // Define game thread, draws the published frames
+    private SimulationThread mSimulationThread;  // Steps the game independently of rendering
 
     private MediaPlayer mMediaPlayer;
 
@@ -26,6 +46,23 @@ public class MainActivity extends AppCompatActivity implements SurfaceHolder.Cal
 
         mGamePanel = findViewById(R.id.gamePanel);  // Initialize game panel
         mGamePanel.getHolder().addCallback(this);  // Add callback to the holder of the game panel
+        mGamePanel.getProfiler().setOverlayEnabled(getIntent().getBooleanExtra(EXTRA_PROFILER_OVERLAY, false));
+        mGamePanel.setTouchPrediction(getIntent().getIntExtra(EXTRA_TOUCH_PREDICTION, 0));
+        mGamePanel.setRenderScale(getIntent().getFloatExtra(EXTRA_RENDER_SCALE, 1f));
+        for (int level = 1; level <= GamePanel.LEVEL_COUNT; level++) {
+            String map = getIntent().getStringExtra(EXTRA_LEVEL_MAP + level);
+            if (map != null) {
+                mGamePanel.setLevelMap(level, new File(getExternalFilesDir(null), map));
+            }
+        }
+        String broadphase = getIntent().getStringExtra(EXTRA_BROADPHASE);
+        if (broadphase != null) {
+            try {
+                mGamePanel.setBroadphaseType(CollisionThread.BroadphaseType.valueOf(broadphase.toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException iae) {
+                Log.w(TAG, "Unknown broadphase " + broadphase + ", keeping the default");
+            }
+        }
 
         // Create MediaPlayer and start playing music
         mMediaPlayer = MediaPlayer.create(this, R.raw.bgm);
@@ -40,6 +77,9 @@ public class MainActivity extends AppCompatActivity implements SurfaceHolder.Cal
         if (mMediaPlayer != null) {
             mMediaPlayer.start();  // Continue playing music
         }
+        if (mSimulationThread != null) {
+            mSimulationThread.setPaused(false);  // Resume the simulation
+        }
         if (mGameThread != null) {
             Choreographer.getInstance().postFrameCallback(this);  // Add frame callback to Choreographer
         }
@@ -53,6 +93,9 @@ public class MainActivity extends AppCompatActivity implements SurfaceHolder.Cal
             mMediaPlayer.pause();  // Pause music
         }
         Choreographer.getInstance().removeFrameCallback(this);  // Remove frame callback from Choreographer
+        if (mSimulationThread != null) {
+            mSimulationThread.setPaused(true);  // Freeze the simulation while not visible
+        }
     }
 
     @Override
@@ -62,6 +105,7 @@ public class MainActivity extends AppCompatActivity implements SurfaceHolder.Cal
             mMediaPlayer.release();  // Release MediaPlayer
             mMediaPlayer = null;
         }
+        mGamePanel.release();  // Stop background decoding
     }
 
     // Implement surfaceCreated method of SurfaceHolder.Callback interface
@@ -69,7 +113,12 @@ public class MainActivity extends AppCompatActivity implements SurfaceHolder.Cal
     public void surfaceCreated(@NonNull SurfaceHolder holder) {
         mGamePanel.start();  // Start game
 
+        mSimulationThread = new SimulationThread(mGamePanel);  // Initialize simulation thread
+        mSimulationThread.start();  // Start simulation thread
+
         mGameThread = new GameThread(mGamePanel);  // Initialize game thread
+        mGameThread.getPacer().setMaxFrameRate(getIntent().getIntExtra(EXTRA_MAX_FRAME_RATE, 0));
+        mGameThread.setDynamicResolution(getIntent().getBooleanExtra(EXTRA_DYNAMIC_RESOLUTION, false));
         mGameThread.start();  // Start game thread
         mGameThread.waitUntilReady();  // Wait until game thread is ready
 
@@ -93,7 +142,30 @@ public class MainActivity extends AppCompatActivity implements SurfaceHolder.Cal
                 throw new RuntimeException("GameThread join() interrupted", ie);
             }
         }
+        Log.d(TAG, mGameThread.getPacer().toString());
         mGameThread = null;  // Set game thread to null
+        mSimulationThread.shutDown();  // Stop simulating
+        try {
+            mSimulationThread.join();  // Wait for simulation thread to end
+        } catch (InterruptedException ie) {
+            throw new RuntimeException("SimulationThread join() interrupted", ie);
+        }
+        mSimulationThread = null;  // Set simulation thread to null
+        mGamePanel.stopCollisions();  // Nothing submits passes any more
+        mGamePanel.logCapacityStats();  // Report entity high-water mark, ring overflows and bitmap memory
+        if (getIntent().getBooleanExtra(EXTRA_FRAME_TIMING_DUMP, false)) {
+            dumpFrameTiming();  // Every timed thread has stopped, so the histograms are consistent
+        }
+    }
+
+    private void dumpFrameTiming() {
+        File file = new File(getExternalFilesDir(null), FRAME_TIMING_FILE);
+        try (Writer out = new FileWriter(file)) {
+            mGamePanel.getProfiler().dump(out);
+            Log.i(TAG, "Frame timing written to " + file);
+        } catch (IOException ioe) {
+            Log.e(TAG, "Unable to write frame timing to " + file, ioe);
+        }
     }
 
     // Implement doFrame method of Choreographer.FrameCallback interface
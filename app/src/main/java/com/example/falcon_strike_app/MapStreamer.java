@@ -0,0 +1,234 @@
+package com.example.falcon_strike_app;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.BitmapRegionDecoder;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.util.Log;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+// Streams a level map many screens tall, decoding only the chunks around the view into a fixed set of
+// reused chunk bitmaps, so memory does not grow with the length of the map.
+public class MapStreamer extends Thread {
+    private static final String TAG = "MapStreamer";
+    private static final int CHUNK_HEIGHT = 256;  // Map rows per chunk
+    private static final int AHEAD_CHUNKS = 2;  // Chunks decoded beyond the top of the view
+    private static final int SPARE_SLOTS = 1;  // Room to decode ahead without evicting a visible chunk
+
+    private final BitmapRegionDecoder mDecoder;
+    private final int mMapWidth, mMapHeight;
+    private final int mChunkCount;
+    private final float mScale;  // Screen pixels per map pixel
+    private final int mScrollPeriod;  // Scaled map height, after which the scroll repeats
+    private final int mScreenHeight;
+
+    private final Object mLock = new Object();  // Guards the slot table and the wanted list
+    private final Bitmap[] mSlotBitmap;  // Reused chunk bitmaps, one per slot
+    private final int[] mSlotChunk;  // Chunk held or being decoded in each slot, -1 if none
+    private final boolean[] mSlotReady;
+    private final long[] mSlotLastDrawn;  // Frame at which each slot was last drawn
+    private final int[] mWanted;  // Chunks the view needs, most urgent first
+    private int mWantedCount;
+    private long mFrame;
+    private volatile boolean running = true;
+
+    private final BitmapFactory.Options mOptions = new BitmapFactory.Options();
+    private final Rect mRegion = new Rect();  // Used by the decoder thread only
+    private final Rect mSource = new Rect();  // Used by the render thread only
+    private final RectF mDestination = new RectF();
+    private final Paint mFillPaint = new Paint();
+
+    // Chunk decodes, for profiling
+    private volatile int mDecodes;
+
+    public MapStreamer(InputStream map, int screenWidth, int screenHeight) throws IOException {
+        super(TAG);
+        setDaemon(true);
+        mDecoder = BitmapRegionDecoder.newInstance(map, false);
+        mMapWidth = mDecoder.getWidth();
+        mMapHeight = mDecoder.getHeight();
+        mChunkCount = (mMapHeight + CHUNK_HEIGHT - 1) / CHUNK_HEIGHT;
+        mScale = screenWidth / (float) mMapWidth;
+        mScrollPeriod = Math.round(mMapHeight * mScale);
+        mScreenHeight = screenHeight;
+
+        int visibleChunks = (int) Math.ceil(screenHeight / (CHUNK_HEIGHT * mScale)) + 1;
+        int slots = Math.min(mChunkCount, visibleChunks + AHEAD_CHUNKS + SPARE_SLOTS);
+        mSlotBitmap = new Bitmap[slots];
+        mSlotChunk = new int[slots];
+        mSlotReady = new boolean[slots];
+        mSlotLastDrawn = new long[slots];
+        for (int s = 0; s < slots; s++) {
+            mSlotBitmap[s] = Bitmap.createBitmap(mMapWidth, CHUNK_HEIGHT, Bitmap.Config.RGB_565);
+            mSlotChunk[s] = -1;
+        }
+        mWanted = new int[visibleChunks + AHEAD_CHUNKS];
+        mOptions.inPreferredConfig = Bitmap.Config.RGB_565;  // Maps are opaque
+        mOptions.inMutable = true;
+        mFillPaint.setColor(0xff000000);
+    }
+
+    public int getScrollPeriod() {
+        return mScrollPeriod;
+    }
+
+    public int getSlotCount() {
+        return mSlotBitmap.length;
+    }
+
+    public int getDecodeCount() {
+        return mDecodes;
+    }
+
+    // Draw the view at the given scroll position, from the bottom of the map upwards. Render thread only;
+    // a chunk that is not decoded yet is drawn as a plain fill, so this never waits for a decode.
+    public void draw(Canvas canvas, float scrollY, int screenWidth) {
+        float chunkSize = CHUNK_HEIGHT * mScale;
+        float windowTop = (mScrollPeriod - mScreenHeight - scrollY) % mScrollPeriod;
+        if (windowTop < 0) {
+            windowTop += mScrollPeriod;
+        }
+        int first = Math.min((int) (windowTop / chunkSize), mChunkCount - 1);
+
+        // Ask for the visible chunks first, then the ones the view scrolls into next
+        synchronized (mLock) {
+            mFrame++;
+            mWantedCount = 0;
+            float y = first * chunkSize - windowTop;
+            for (int c = first; y < mScreenHeight && mWantedCount < mWanted.length; c = (c + 1) % mChunkCount) {
+                mWanted[mWantedCount++] = c;
+                y += rows(c) * mScale;
+            }
+            for (int a = 1; a <= AHEAD_CHUNKS && mWantedCount < mWanted.length; a++) {
+                mWanted[mWantedCount++] = (first - a + mChunkCount) % mChunkCount;
+            }
+            mLock.notifyAll();
+        }
+
+        // Slots of wanted chunks are never evicted, so they can be drawn outside the lock
+        float y = first * chunkSize - windowTop;
+        for (int c = first; y < mScreenHeight; c = (c + 1) % mChunkCount) {
+            float height = rows(c) * mScale;
+            mDestination.set(0, y, screenWidth, y + height);
+            Bitmap bitmap = readyBitmap(c);
+            if (bitmap != null) {
+                mSource.set(0, 0, mMapWidth, rows(c));
+                canvas.drawBitmap(bitmap, mSource, mDestination, null);
+            } else {
+                canvas.drawRect(mDestination, mFillPaint);  // Not decoded yet
+            }
+            y += height;
+        }
+    }
+
+    private Bitmap readyBitmap(int chunk) {
+        synchronized (mLock) {
+            for (int s = 0; s < mSlotChunk.length; s++) {
+                if (mSlotChunk[s] == chunk && mSlotReady[s]) {
+                    mSlotLastDrawn[s] = mFrame;
+                    return mSlotBitmap[s];
+                }
+            }
+            return null;
+        }
+    }
+
+    // Map rows in a chunk; the last one may be short
+    private int rows(int chunk) {
+        return Math.min(CHUNK_HEIGHT, mMapHeight - chunk * CHUNK_HEIGHT);
+    }
+
+    // Decode each missing wanted chunk into a free or evicted slot, reusing its bitmap through inBitmap
+    @Override
+    public void run() {
+        while (running) {
+            int chunk = -1;
+            int slot = -1;
+            synchronized (mLock) {
+                // Park until a wanted chunk is missing and a slot can take it
+                while (running) {
+                    chunk = missingChunk();
+                    slot = chunk >= 0 ? victimSlot() : -1;
+                    if (slot >= 0) break;
+                    try {
+                        mLock.wait();
+                    } catch (InterruptedException ie) {
+                        running = false;
+                    }
+                }
+                if (!running) break;
+                mSlotChunk[slot] = chunk;
+                mSlotReady[slot] = false;
+            }
+
+            mRegion.set(0, chunk * CHUNK_HEIGHT, mMapWidth, chunk * CHUNK_HEIGHT + rows(chunk));
+            mOptions.inBitmap = mSlotBitmap[slot];
+            Bitmap decoded = mDecoder.decodeRegion(mRegion, mOptions);
+            mDecodes++;
+
+            synchronized (mLock) {
+                if (decoded != mSlotBitmap[slot]) {
+                    Log.w(TAG, "Chunk " + chunk + " was not decoded into its slot bitmap");
+                    if (decoded == null) {
+                        mSlotChunk[slot] = -1;
+                        continue;
+                    }
+                    mSlotBitmap[slot] = decoded;
+                }
+                mSlotReady[slot] = mSlotChunk[slot] == chunk;
+            }
+        }
+        mDecoder.recycle();
+    }
+
+    // Most urgent wanted chunk that no slot holds, or -1
+    private int missingChunk() {
+        for (int w = 0; w < mWantedCount; w++) {
+            if (slotOf(mWanted[w]) < 0) return mWanted[w];
+        }
+        return -1;
+    }
+
+    // An empty slot, else the least recently drawn slot whose chunk is not wanted, or -1
+    private int victimSlot() {
+        int victim = -1;
+        for (int s = 0; s < mSlotChunk.length; s++) {
+            if (mSlotChunk[s] < 0) return s;
+            if (!mSlotReady[s] || isWanted(mSlotChunk[s])) continue;
+            if (victim < 0 || mSlotLastDrawn[s] < mSlotLastDrawn[victim]) {
+                victim = s;
+            }
+        }
+        return victim;
+    }
+
+    private int slotOf(int chunk) {
+        for (int s = 0; s < mSlotChunk.length; s++) {
+            if (mSlotChunk[s] == chunk) return s;
+        }
+        return -1;
+    }
+
+    private boolean isWanted(int chunk) {
+        for (int w = 0; w < mWantedCount; w++) {
+            if (mWanted[w] == chunk) return true;
+        }
+        return false;
+    }
+
+    // Stop decoding; the decoder is released by run(), or here if the thread was never started
+    public void shutDown() {
+        synchronized (mLock) {
+            running = false;
+            mLock.notifyAll();
+        }
+        if (getState() == State.NEW) {
+            mDecoder.recycle();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.falcon_strike_app;
+
+// Short-horizon touch prediction: the newest drag sample extrapolated with the velocity and
+// acceleration of the last three.
+public class MotionPredictor {
+    private static final long MAX_HORIZON_MILLIS = 50;  // Longest extrapolation; beyond this it overshoots badly
+    private static final long STALE_MILLIS = 40;  // Sample age after which the finger is taken to be resting
+
+    private final float[] mX = new float[3];  // Newest sample at index 0
+    private final float[] mY = new float[3];
+    private final long[] mTime = new long[3];
+    private int mCount;
+
+    public void reset() {
+        mCount = 0;
+    }
+
+    public void addSample(float x, float y, long timeMillis) {
+        if (mCount > 0 && timeMillis <= mTime[0]) {
+            // Same timestamp as the newest sample: it supersedes it rather than giving an infinite velocity
+            mX[0] = x;
+            mY[0] = y;
+            return;
+        }
+        for (int i = Math.min(mCount, 2); i > 0; i--) {
+            mX[i] = mX[i - 1];
+            mY[i] = mY[i - 1];
+            mTime[i] = mTime[i - 1];
+        }
+        mX[0] = x;
+        mY[0] = y;
+        mTime[0] = timeMillis;
+        mCount = Math.min(mCount + 1, 3);
+    }
+
+    public boolean hasSamples() {
+        return mCount > 0;
+    }
+
+    // Predicted position at timeMillis, written to out[0] and out[1]
+    public void predict(long timeMillis, float[] out) {
+        out[0] = mX[0];
+        out[1] = mY[0];
+        if (mCount < 2 || timeMillis - mTime[0] > STALE_MILLIS) return;
+
+        float horizon = Math.max(0, Math.min(timeMillis - mTime[0], MAX_HORIZON_MILLIS)) / 1000f;
+        float dt1 = (mTime[0] - mTime[1]) / 1000f;
+        float vx = (mX[0] - mX[1]) / dt1;
+        float vy = (mY[0] - mY[1]) / dt1;
+        float ax = 0, ay = 0;
+        if (mCount == 3) {
+            float dt2 = (mTime[1] - mTime[2]) / 1000f;
+            float span = (dt1 + dt2) / 2;
+            ax = (vx - (mX[1] - mX[2]) / dt2) / span;
+            ay = (vy - (mY[1] - mY[2]) / dt2) / span;
+            // Only let acceleration slow the prediction down, never reverse its direction
+            if (vx * (vx + ax * horizon) < 0) ax = -vx / horizon;
+            if (vy * (vy + ay * horizon) < 0) ay = -vy / horizon;
+        }
+        out[0] += vx * horizon + ax * horizon * horizon / 2;
+        out[1] += vy * horizon + ay * horizon * horizon / 2;
+    }
+}
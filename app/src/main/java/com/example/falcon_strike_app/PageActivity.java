@@ -5,7 +5,6 @@ import android.app.Activity;
 import android.app.AlertDialog;
 import android.content.Intent;
 import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.os.Bundle;
 import android.util.DisplayMetrics;
 import android.widget.Button;
@@ -15,6 +14,7 @@ import com.example.falconstrikeapp.R;
 
 public class PageActivity extends Activity {
     Button startButton, helpButton;
+    private Bitmap mCover;  // Cover image, counted against the asset bitmap budget
 
     @SuppressLint("MissingInflatedId")
     protected void onCreate(Bundle savedInstanceState) {
@@ -28,20 +28,9 @@ public class PageActivity extends Activity {
         getWindowManager().getDefaultDisplay().getMetrics(displayMetrics);
         int screenWidth = displayMetrics.widthPixels;
 
-        // Decode the image file
-        BitmapFactory.Options options = new BitmapFactory.Options();
-        options.inJustDecodeBounds = false;
-        Bitmap bitmap = BitmapFactory.decodeResource(getResources(), R.drawable.cover_page, options);
-
-        // Calculate the new height to maintain the aspect ratio
-        float originalWidth = bitmap.getWidth();
-        float originalHeight = bitmap.getHeight();
-        int newHeight = Math.round((originalHeight * screenWidth) / originalWidth);
-
-        // Scale the bitmap
-        bitmap = Bitmap.createScaledBitmap(bitmap, screenWidth, newHeight, true);
-
-        imageView.setImageBitmap(bitmap);
+        // Decode the cover straight to the screen width, keeping its aspect ratio
+        mCover = AssetCache.getInstance(this).getDecoder().decodeToWidth(R.drawable.cover_page, BitmapDecoder.AssetClass.IMAGE, screenWidth);
+        imageView.setImageBitmap(mCover);
 
         startButton = findViewById(R.id.startButton);
         helpButton = findViewById(R.id.helpButton);
@@ -54,6 +43,20 @@ public class PageActivity extends Activity {
         });
     }
 
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        AssetCache.getInstance(this).getDecoder().recycle(mCover);
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        // Decode the game assets in the background while the player looks at the cover; after a game
+        // this is a no-op unless they were trimmed meanwhile
+        AssetCache.getInstance(this).preload();
+    }
+
     @Override
     protected void onActivityResult(int requestCode, int resultCode, Intent data) {
         super.onActivityResult(requestCode, resultCode, data);
@@ -0,0 +1,30 @@
+package com.example.falcon_strike_app;
+
+// Growable list of index pairs shared by the broadphase implementations
+public class PairBuffer {
+    private int[] mPairs = new int[64];  // Two indices per pair
+    private int mCount;  // Number of pairs
+
+    public void clear() {
+        mCount = 0;
+    }
+
+    public void add(int a, int b) {
+        if (mCount * 2 + 2 > mPairs.length) {
+            int[] pairs = new int[mPairs.length * 2];
+            System.arraycopy(mPairs, 0, pairs, 0, mCount * 2);
+            mPairs = pairs;
+        }
+        mPairs[mCount * 2] = a;
+        mPairs[mCount * 2 + 1] = b;
+        mCount++;
+    }
+
+    public int[] getPairs() {
+        return mPairs;
+    }
+
+    public int size() {
+        return mCount;
+    }
+}
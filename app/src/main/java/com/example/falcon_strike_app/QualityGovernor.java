@@ -0,0 +1,118 @@
+package com.example.falcon_strike_app;
+
+import android.util.Log;
+
+import java.util.Arrays;
+
+// Keeps frames within budget by giving up, one step per decision, render resolution, then quality, then
+// frame rate, and taking them back in reverse order when the 90th percentile frame cost leaves room.
+public class QualityGovernor {
+    private static final String TAG = "QualityGovernor";
+    private static final int WINDOW = 30;  // Drawn frames per decision
+    private static final float SLOW_FRAME_PERCENTILE = 0.9f;
+    private static final float STEP_DOWN_FRACTION = 0.8f;
+    private static final float STEP_UP_FRACTION = 0.4f;
+    private static final int STEP_UP_WINDOWS = 4;  // Calm windows needed to step up
+
+    public enum Level {
+        HIGH,  // Filtered sprites, full explosions, scrolling backdrop
+        MEDIUM,  // Unfiltered sprites, shorter and fewer explosions
+        LOW,  // As MEDIUM, fewer explosions still, and a flat backdrop
+    }
+
+    // What a decision changed
+    public enum Step {
+        NONE,
+        RESOLUTION,
+        QUALITY,
+        FRAME_RATE,
+    }
+
+    private static final Level[] LEVELS = Level.values();
+
+    private final FramePacer mPacer;
+    private ResolutionScaler mScaler;  // Null for a fixed resolution
+    private Level mLevel = Level.HIGH;
+    private final long[] mCosts = new long[WINDOW];
+    private int mCostCount;
+    private int mCalmWindows;  // Consecutive windows under the step-up threshold
+    private boolean mSettling;  // Skip the window after a change
+
+    public QualityGovernor(FramePacer pacer) {
+        mPacer = pacer;
+    }
+
+    // Let the governor pick the render resolution too, or pass null to keep it fixed
+    public void setResolutionScaler(ResolutionScaler scaler) {
+        mScaler = scaler;
+    }
+
+    public Level getLevel() {
+        return mLevel;
+    }
+
+    // Render thread: report what a drawn frame cost. Returns what changed, at most one thing.
+    public Step onFrameDrawn(long costNanos) {
+        mCosts[mCostCount++] = costNanos;
+        if (mCostCount < WINDOW) return Step.NONE;
+        mCostCount = 0;
+        if (mSettling) {
+            mSettling = false;
+            return Step.NONE;
+        }
+
+        Arrays.sort(mCosts);
+        long slowFrame = mCosts[(int) (WINDOW * SLOW_FRAME_PERCENTILE)];
+        long budgetNanos = mPacer.getFrameBudgetNanos();
+        Level level = mLevel;
+        float frameRate = mPacer.getFrameRate();
+        float scale = getScale();
+        Step step = Step.NONE;
+        if (slowFrame > budgetNanos * STEP_DOWN_FRACTION) {
+            mCalmWindows = 0;
+            step = stepDown();
+        } else if (slowFrame < budgetNanos * STEP_UP_FRACTION) {
+            if (++mCalmWindows >= STEP_UP_WINDOWS) {
+                mCalmWindows = 0;
+                step = stepUp(slowFrame);
+            }
+        } else {
+            mCalmWindows = 0;
+        }
+        if (step == Step.NONE) return step;
+        Log.i(TAG, describe(scale, level, frameRate) + " -> " + describe(getScale(), mLevel, mPacer.getFrameRate())
+                + ": p90 frame " + slowFrame / 1000 + " us of a " + budgetNanos / 1000 + " us budget");
+        mSettling = true;
+        return step;
+    }
+
+    private Step stepDown() {
+        if (mScaler != null && mScaler.stepDown()) return Step.RESOLUTION;
+        if (mLevel.ordinal() < LEVELS.length - 1) {
+            mLevel = LEVELS[mLevel.ordinal() + 1];
+            return Step.QUALITY;
+        }
+        return mPacer.lowerRate() ? Step.FRAME_RATE : Step.NONE;
+    }
+
+    // Undo the last step down, if the slow frames leave room for it
+    private Step stepUp(long slowFrame) {
+        if (mPacer.canRaiseRate()) {
+            boolean fits = slowFrame < mPacer.getFasterFrameBudgetNanos() * STEP_UP_FRACTION;
+            return fits && mPacer.raiseRate() ? Step.FRAME_RATE : Step.NONE;
+        }
+        if (mLevel.ordinal() > 0) {
+            mLevel = LEVELS[mLevel.ordinal() - 1];
+            return Step.QUALITY;
+        }
+        return mScaler != null && mScaler.stepUp() ? Step.RESOLUTION : Step.NONE;
+    }
+
+    private float getScale() {
+        return mScaler != null ? mScaler.getScale() : 1f;
+    }
+
+    private static String describe(float scale, Level level, float frameRate) {
+        return "scale " + scale + ", " + level + " at " + frameRate + " fps";
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.falcon_strike_app;
+
+import android.graphics.RectF;
+
+// Everything the render thread draws for one simulation step, filled by the simulation thread and
+// handed over through a TripleBuffer.
+public class RenderSnapshot {
+    private static final int INITIAL_CAPACITY = 64;
+
+    long mTimeNanos;  // Time the simulation state corresponds to, on the System.nanoTime() clock
+    long mStepNanos;  // Length of the simulation step that produced this state
+    long mInputTimeNanos;  // Event time of the newest touch sample applied so far, on the same clock, 0 if none
+
+    int mLevel;
+    int mScore;
+    int mPlayerHP;
+    boolean mIsGameOver, mIsGameWin, mIsGameStart;
+    float mBackgroundY, mPrevBackgroundY;  // Background scroll after and before the step
+
+    final RectF mPlayerBounds = new RectF();
+    int mPlayerFrame;
+    boolean mPlayerVisible;
+
+    int mCount;  // Number of entities
+    int[] mSheets;  // Sheet index per entity
+    int[] mFrames;  // Animation frame per entity
+    float[] mX, mY;  // Centre after the step
+    float[] mPrevX, mPrevY;  // Centre before the step
+    float[] mHalfWidth, mHalfHeight;
+
+    public RenderSnapshot() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    public void setPlayer(AnimatedSprite player) {
+        player.getBounds(mPlayerBounds);
+        mPlayerFrame = player.getCurrentFrame();
+        mPlayerVisible = player.isVisible();
+    }
+
+    // Copy the drawable state of every live entity of the store
+    public void setEntities(EntityStore store) {
+        if (mX.length < store.size()) {
+            allocate(Math.max(store.size(), mX.length * 2));
+        }
+        int count = 0;
+        for (int i = 0; i < store.size(); i++) {
+            if (!store.mAlive[i]) continue;
+            mSheets[count] = store.mSheet[i];
+            mFrames[count] = store.mFrame[i];
+            mX[count] = store.mX[i];
+            mY[count] = store.mY[i];
+            mPrevX[count] = store.mPrevX[i];
+            mPrevY[count] = store.mPrevY[i];
+            mHalfWidth[count] = store.mHalfWidth[i];
+            mHalfHeight[count] = store.mHalfHeight[i];
+            count++;
+        }
+        mCount = count;
+    }
+
+    // Fraction of the way from the previous to the current state to draw at frameTimeNanos
+    public float alphaAt(long frameTimeNanos) {
+        if (mStepNanos == 0) return 1f;
+        float alpha = (frameTimeNanos - mTimeNanos) / (float) mStepNanos;
+        return Math.max(0f, Math.min(1f, alpha));
+    }
+
+    private void allocate(int capacity) {
+        mSheets = new int[capacity];
+        mFrames = new int[capacity];
+        mX = new float[capacity];
+        mY = new float[capacity];
+        mPrevX = new float[capacity];
+        mPrevY = new float[capacity];
+        mHalfWidth = new float[capacity];
+        mHalfHeight = new float[capacity];
+    }
+}
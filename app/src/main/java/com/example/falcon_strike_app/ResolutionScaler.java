@@ -0,0 +1,27 @@
+package com.example.falcon_strike_app;
+
+// Render resolution steps, as a fraction of the view size. QualityGovernor gives resolution up first and
+// takes it back last, since it costs a pixel-art game the least.
+public class ResolutionScaler {
+    private static final float[] SCALES = {1f, 0.85f, 0.7f, 0.5f};
+
+    private int mStep;  // Index into SCALES
+
+    public float getScale() {
+        return SCALES[mStep];
+    }
+
+    // Go to the next smaller scale. Returns false if already at the smallest.
+    public boolean stepDown() {
+        if (mStep == SCALES.length - 1) return false;
+        mStep++;
+        return true;
+    }
+
+    // Go back to the next larger scale. Returns false if already at full resolution.
+    public boolean stepUp() {
+        if (mStep == 0) return false;
+        mStep--;
+        return true;
+    }
+}
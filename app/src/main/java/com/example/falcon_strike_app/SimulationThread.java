@@ -0,0 +1,107 @@
+package com.example.falcon_strike_app;
+
+import android.util.Log;
+
+import java.util.concurrent.locks.LockSupport;
+
+// Runs the game simulation in fixed steps on its own thread and publishes a RenderSnapshot after each
+// batch of steps, so drawing and simulating never wait for each other.
+public class SimulationThread extends Thread {
+    private static final String TAG = "SimulationThread";
+    private static final long ONE_SECOND_NANOS = 1000000000L;
+    private static final float ONE_BILLION_FLOAT = 1000000000.0f;
+    private static final int DEFAULT_SIMULATION_RATE = 120;  // Simulation steps per second
+    private static final int MAX_STEPS_PER_FRAME = 8;  // Catch-up limit, time beyond it is dropped instead of simulated
+
+    private final GamePanel mGamePanel;
+    private final Object mLock = new Object();
+
+    private volatile boolean mRunning = true;
+    private boolean mPaused;  // Guarded by mLock
+    private volatile long mStepNanos = ONE_SECOND_NANOS / DEFAULT_SIMULATION_RATE;  // Length of one simulation step
+    private long mDroppedNanos;  // Time discarded by the catch-up limit, for diagnostics
+
+    public SimulationThread(GamePanel gamePanel) {
+        super(TAG);
+        mGamePanel = gamePanel;
+    }
+
+    @Override
+    public void run() {
+        long nextStepNanos = System.nanoTime();
+        while (mRunning) {
+            if (waitWhilePaused()) {
+                nextStepNanos = System.nanoTime();  // Do not simulate the time spent paused
+            }
+
+            long now = System.nanoTime();
+            if (now < nextStepNanos) {
+                LockSupport.parkNanos(nextStepNanos - now);
+                continue;
+            }
+
+            long stepNanos = mStepNanos;
+            float deltaTime = stepNanos / ONE_BILLION_FLOAT;
+            GameClock clock = mGamePanel.getClock();
+            FrameProfiler profiler = mGamePanel.getProfiler();
+            int steps = 0;
+            while (now >= nextStepNanos && steps < MAX_STEPS_PER_FRAME) {
+                float gameTime = clock.advance(deltaTime);  // Zero while the clock is paused, scaled in slow motion
+                mGamePanel.awaitCollisions();
+                long updateStart = profiler.begin(FrameProfiler.Phase.UPDATE);
+                mGamePanel.update(gameTime);
+                profiler.end(FrameProfiler.Phase.UPDATE, updateStart);
+                mGamePanel.dispatchCollisions(gameTime);  // The last pass runs while this thread sleeps
+                nextStepNanos += stepNanos;
+                steps++;
+            }
+            if (now >= nextStepNanos) {
+                // Too far behind to catch up: drop the backlog rather than spiral into ever longer steps
+                long behind = (now - nextStepNanos) / stepNanos + 1;
+                mDroppedNanos += behind * stepNanos;
+                nextStepNanos += behind * stepNanos;
+            }
+            mGamePanel.publishFrame(nextStepNanos - stepNanos, stepNanos);
+        }
+        Log.d(TAG, "Stopped, dropped " + mDroppedNanos / 1000000 + "ms of simulation time");
+    }
+
+    // Returns true if the thread had to wait
+    private boolean waitWhilePaused() {
+        synchronized (mLock) {
+            if (!mPaused) return false;
+            while (mRunning && mPaused) {
+                try {
+                    mLock.wait();
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    mRunning = false;
+                }
+            }
+            return true;
+        }
+    }
+
+    public void setPaused(boolean paused) {
+        synchronized (mLock) {
+            mPaused = paused;
+            mLock.notifyAll();
+        }
+    }
+
+    // Change the simulation rate; takes effect from the next step
+    public void setSimulationRate(int stepsPerSecond) {
+        if (stepsPerSecond <= 0) {
+            throw new IllegalArgumentException("Simulation rate must be positive: " + stepsPerSecond);
+        }
+        mStepNanos = ONE_SECOND_NANOS / stepsPerSecond;
+    }
+
+    public void shutDown() {
+        synchronized (mLock) {
+            mRunning = false;
+            mLock.notifyAll();
+        }
+        LockSupport.unpark(this);
+    }
+}
@@ -1,91 +1,128 @@
 package com.example.falcon_strike_app;
 
 import android.content.res.Resources;
-import android.graphics.Bitmap;
-import android.graphics.Canvas;
-import android.graphics.Paint;
 import android.graphics.RectF;
 import android.view.MotionEvent;
 
 public class Sprite {
 
-    // Member variables
-    protected final Bitmap mBitmap;  // Bitmap for storing sprite image
-    protected final Paint mPaint;  // Paint for drawing sprite
+    public static final float NO_HIT = -1f;  // Returned by timeOfImpact when the boxes never touch
 
+    // Member variables
     protected float mX, mY;  // Sprite's position
     protected float mXSpeed, mYSpeed;  // Sprite's speed
 
     protected float mScale;  // Sprite's scale ratio
+    protected float mFrameWidth, mFrameHeight;  // Unscaled size of the drawn image
+    protected final RectF mBounds;  // Cached bounds, kept in sync by every method that moves or resizes the sprite
     protected boolean mDraggable, mDragging;  // Whether the sprite can be dragged, and whether it is being dragged
 
 
-    // Constructor
-    public Sprite(Bitmap bitmap) {
-        mBitmap = bitmap;  // Initialize image
-        mPaint = new Paint(Paint.ANTI_ALIAS_FLAG);  // Initialize paint and enable anti-aliasing
-
+    // Constructor; the image itself is drawn from the texture atlas
+    public Sprite(int frameWidth, int frameHeight) {
         mX = mY = mXSpeed = mYSpeed = 0f;  // Initialize position and speed
 
         mScale = 1;  // Initialize scale ratio
         mDraggable = mDragging = false;  // Initialize dragging state
+
+        mFrameWidth = frameWidth;
+        mFrameHeight = frameHeight;
+        mBounds = new RectF();
+        updateBounds();
     }
 
     // Move method
     public void move(float deltaTime) {
         mX += mXSpeed * deltaTime;  // Update X position
         mY += mYSpeed * deltaTime;  // Update Y position
+        updateBounds();
     }
 
     // Collision handling method
     public void handleBounce(int left, int top, int right, int bottom) {
-        int halfWidth = (int) (getBounds().width() / 2f);
+        int halfWidth = (int) (mBounds.width() / 2f);
         if (mX < left + halfWidth || mX > right - halfWidth)
             mXSpeed *= -1;  // If it hits the left or right boundary, reverse the X direction speed
 
-        int halfHeight = (int) (getBounds().height() / 2f);
+        int halfHeight = (int) (mBounds.height() / 2f);
         if (mY < top + halfHeight || mY > bottom - halfHeight)
             mYSpeed *= -1;  // If it hits the top or bottom boundary, reverse the Y direction speed
     }
 
-    // Render method
-    public void render(Canvas canvas) {
-        canvas.drawBitmap(mBitmap, null, getBounds(), mPaint);  // Draw sprite on canvas
-    }
+    // Swept collision test. Both boxes are given at their end-of-tick position together with the distance
+    // they moved during the tick. Returns the fraction of the tick at which they first overlap, or NO_HIT.
+    public static float timeOfImpact(float aLeft, float aTop, float aRight, float aBottom, float aMoveX, float aMoveY,
+                                     float bLeft, float bTop, float bRight, float bBottom, float bMoveX, float bMoveY) {
+        return sweep(aLeft, aTop, aRight, aBottom, aMoveX, aMoveY, bLeft, bTop, bRight, bBottom, bMoveX, bMoveY, false);
+    }
+
+    // Same as timeOfImpact, but returns the fraction of the tick at which the boxes stop overlapping (at most 1)
+    public static float timeOfSeparation(float aLeft, float aTop, float aRight, float aBottom, float aMoveX, float aMoveY,
+                                         float bLeft, float bTop, float bRight, float bBottom, float bMoveX, float bMoveY) {
+        return sweep(aLeft, aTop, aRight, aBottom, aMoveX, aMoveY, bLeft, bTop, bRight, bBottom, bMoveX, bMoveY, true);
+    }
+
+    private static float sweep(float aLeft, float aTop, float aRight, float aBottom, float aMoveX, float aMoveY,
+                               float bLeft, float bTop, float bRight, float bBottom, float bMoveX, float bMoveY,
+                               boolean separation) {
+        float enter = 0f;
+        float exit = 1f;
+
+        // Work in b's frame: a starts at (a - aMove) - (b - bMove) and moves by aMove - bMove
+        float moveX = aMoveX - bMoveX;
+        float startLeft = (aLeft - aMoveX) - (bLeft - bMoveX);
+        float startRight = (aRight - aMoveX) - (bLeft - bMoveX);
+        float width = bRight - bLeft;
+        if (moveX == 0f) {
+            if (startRight <= 0f || startLeft >= width) return NO_HIT;
+        } else {
+            float t0 = -startRight / moveX;
+            float t1 = (width - startLeft) / moveX;
+            enter = Math.max(enter, Math.min(t0, t1));
+            exit = Math.min(exit, Math.max(t0, t1));
+            if (enter >= exit) return NO_HIT;
+        }
 
-    // Collision detection method
-    public boolean collideWith(Sprite other) {
-        return RectF.intersects(this.getBounds(), other.getBounds());  // Check if this sprite collides with other sprite
+        float moveY = aMoveY - bMoveY;
+        float startTop = (aTop - aMoveY) - (bTop - bMoveY);
+        float startBottom = (aBottom - aMoveY) - (bTop - bMoveY);
+        float height = bBottom - bTop;
+        if (moveY == 0f) {
+            if (startBottom <= 0f || startTop >= height) return NO_HIT;
+        } else {
+            float t0 = -startBottom / moveY;
+            float t1 = (height - startTop) / moveY;
+            enter = Math.max(enter, Math.min(t0, t1));
+            exit = Math.min(exit, Math.max(t0, t1));
+            if (enter >= exit) return NO_HIT;
+        }
+        return separation ? exit : enter;
     }
 
     // Touch detection method
     public boolean isTouched(MotionEvent event) {
-        return mDraggable && getBounds().contains(event.getX(), event.getY());  // Check if this sprite is touched
+        return isTouched(event.getX(), event.getY());
     }
 
-    // Get bounds method
+    public boolean isTouched(float x, float y) {
+        return mDraggable && mBounds.contains(x, y);  // Check if this sprite is touched
+    }
+
+    // Get bounds method. The returned rectangle is owned by the sprite and updated in place, do not modify it.
     public RectF getBounds() {
-        int bitmapWidth = mBitmap.getWidth();
-        int bitmapHeight = mBitmap.getHeight();
-
-        RectF bounds = new RectF(
-                mX - bitmapWidth / 2f,
-                mY - bitmapHeight / 2f,
-                mX + bitmapWidth / 2f,
-                mY + bitmapHeight / 2f);  // Calculate sprite's bounds
-
-        // If there is a scale, adjust the bounds
-        if (mScale != 1) {
-            float diffHorizontal = (bounds.right - bounds.left) * (mScale - 1f);
-            float diffVertical = (bounds.bottom - bounds.top) * (mScale - 1f);
-
-            bounds.top -= diffVertical / 2f;
-            bounds.left -= diffHorizontal / 2f;
-            bounds.right += diffHorizontal / 2f;
-            bounds.bottom += diffVertical / 2f;
-        }
+        return mBounds;
+    }
+
+    // Copy the bounds into out, for callers that need to keep them
+    public void getBounds(RectF out) {
+        out.set(mBounds);
+    }
 
-        return bounds;  // Return bounds
+    // Recompute the cached bounds from position, scale and frame size
+    protected void updateBounds() {
+        float halfWidth = mFrameWidth * mScale / 2f;
+        float halfHeight = mFrameHeight * mScale / 2f;
+        mBounds.set(mX - halfWidth, mY - halfHeight, mX + halfWidth, mY + halfHeight);
     }
 
     // Get and set dragging state methods
@@ -105,15 +142,16 @@ public class Sprite {
         mDragging = state;
     }
 
-    // Set position method
+    // Set position method, keeping the sprite on the display
     public void setPosition(float x, float y) {
-        // Get screen width and height
-        int screenWidth = Resources.getSystem().getDisplayMetrics().widthPixels;
-        int screenHeight = Resources.getSystem().getDisplayMetrics().heightPixels;
+        setPosition(x, y, Resources.getSystem().getDisplayMetrics().widthPixels, Resources.getSystem().getDisplayMetrics().heightPixels);
+    }
 
+    // Set position, keeping the sprite inside a screenWidth by screenHeight area
+    public void setPosition(float x, float y, int screenWidth, int screenHeight) {
         // Get sprite width and height
-        float spriteWidth = getBounds().width();
-        float spriteHeight = getBounds().height();
+        float spriteWidth = mFrameWidth * mScale;
+        float spriteHeight = mFrameHeight * mScale;
 
         // Check and adjust x and y values to ensure sprite does not exceed screen boundaries
         if (x - spriteWidth / 2 < 0) {
@@ -131,11 +169,13 @@ public class Sprite {
         // Update sprite's position
         mX = x;
         mY = y;
+        updateBounds();
     }
 
     // Set scale ratio method
     public void setScale(float scale) {
         mScale = scale;
+        updateBounds();
     }
 
     // Set speed method
@@ -144,6 +184,18 @@ public class Sprite {
         mYSpeed = ySpeed;
     }
 
+    public float getScale() {
+        return mScale;
+    }
+
+    public float getXSpeed() {
+        return mXSpeed;
+    }
+
+    public float getYSpeed() {
+        return mYSpeed;
+    }
+
     public float getX() {
         return mX;
     }
@@ -0,0 +1,107 @@
+package com.example.falcon_strike_app;
+
+import android.graphics.BitmapShader;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Shader;
+
+// Draws atlas frames with one Canvas.drawVertices() call per run of quads on the same atlas page,
+// keeping draw order.
+public class SpriteBatch {
+    private static final int MAX_QUADS = 2048;  // Per draw call; keeps vertex indices within a short
+
+    private final TextureAtlas mAtlas;
+    private final float[] mFrameUV;
+    private final Paint[] mPagePaints;
+
+    private final float[] mVertices = new float[MAX_QUADS * 8];  // Four corners per quad
+    private final float[] mTexCoords = new float[MAX_QUADS * 8];
+    private final short[] mIndices = new short[MAX_QUADS * 6];  // Two triangles per quad, built once
+    private int mQuads;
+    private int mPage = -1;  // Page of the collected quads
+    private Canvas mCanvas;
+
+    private int mDrawCalls;  // Draw calls since begin(), for profiling
+
+    public SpriteBatch(TextureAtlas atlas) {
+        mAtlas = atlas;
+        mFrameUV = atlas.getFrameUV();
+        mPagePaints = new Paint[atlas.getPageCount()];
+        for (int p = 0; p < mPagePaints.length; p++) {
+            mPagePaints[p] = new Paint(Paint.FILTER_BITMAP_FLAG);
+            mPagePaints[p].setShader(new BitmapShader(atlas.getPage(p), Shader.TileMode.CLAMP, Shader.TileMode.CLAMP));
+        }
+        for (int q = 0; q < MAX_QUADS; q++) {
+            int vertex = q * 4;
+            int index = q * 6;
+            mIndices[index] = (short) vertex;
+            mIndices[index + 1] = (short) (vertex + 1);
+            mIndices[index + 2] = (short) (vertex + 2);
+            mIndices[index + 3] = (short) vertex;
+            mIndices[index + 4] = (short) (vertex + 2);
+            mIndices[index + 5] = (short) (vertex + 3);
+        }
+    }
+
+    // Start collecting quads for canvas; render thread only
+    public void begin(Canvas canvas) {
+        mCanvas = canvas;
+        mQuads = 0;
+        mPage = -1;
+        mDrawCalls = 0;
+    }
+
+    // Queue one atlas frame stretched over the given rectangle
+    public void draw(int atlasFrame, float left, float top, float right, float bottom) {
+        int page = mAtlas.getFramePage(atlasFrame);
+        if (page != mPage || mQuads == MAX_QUADS) {
+            flush();
+            mPage = page;
+        }
+        int v = mQuads * 8;
+        int uv = atlasFrame * 4;
+        float u0 = mFrameUV[uv], v0 = mFrameUV[uv + 1], u1 = mFrameUV[uv + 2], v1 = mFrameUV[uv + 3];
+        mVertices[v] = left;
+        mVertices[v + 1] = top;
+        mVertices[v + 2] = right;
+        mVertices[v + 3] = top;
+        mVertices[v + 4] = right;
+        mVertices[v + 5] = bottom;
+        mVertices[v + 6] = left;
+        mVertices[v + 7] = bottom;
+        mTexCoords[v] = u0;
+        mTexCoords[v + 1] = v0;
+        mTexCoords[v + 2] = u1;
+        mTexCoords[v + 3] = v0;
+        mTexCoords[v + 4] = u1;
+        mTexCoords[v + 5] = v1;
+        mTexCoords[v + 6] = u0;
+        mTexCoords[v + 7] = v1;
+        mQuads++;
+    }
+
+    // Draw whatever is still collected; call once after the last draw() of the frame
+    public void end() {
+        flush();
+        mCanvas = null;
+    }
+
+    // Bilinear filtering of scaled sprites; off is cheaper and blockier
+    public void setFiltering(boolean filtering) {
+        for (Paint paint : mPagePaints) {
+            paint.setFilterBitmap(filtering);
+        }
+    }
+
+    public int getDrawCalls() {
+        return mDrawCalls;
+    }
+
+    private void flush() {
+        if (mQuads == 0) return;
+        mCanvas.drawVertices(Canvas.VertexMode.TRIANGLES, mQuads * 8, mVertices, 0, mTexCoords, 0,
+                null, 0, mIndices, 0, mQuads * 6, mPagePaints[mPage]);
+        mDrawCalls++;
+        mQuads = 0;
+    }
+}
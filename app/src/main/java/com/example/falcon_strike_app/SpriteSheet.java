@@ -0,0 +1,69 @@
+package com.example.falcon_strike_app;
+
+import android.graphics.Bitmap;
+import android.graphics.Rect;
+
+// A horizontal strip of equally wide animation frames.
+// The frame rectangles and collision mask are built once and shared by every sprite drawn from the sheet.
+public class SpriteSheet {
+    private Bitmap mBitmap;  // Bitmap holding all frames, null once the frames live in a TextureAtlas
+    private final int mNumFrames;  // Number of frames in the strip
+    private final int mFrameWidth, mFrameHeight;
+    private final Rect[] mFrames;  // Source rectangle of each frame
+    private CollisionMask mCollisionMask;  // Opacity masks of the frames, or null
+    private int mAtlasFrame = -1;  // Atlas frame index of frame 0, set when the sheet is packed into a TextureAtlas
+
+    public SpriteSheet(Bitmap bitmap, int numFrames) {
+        mBitmap = bitmap;
+        mNumFrames = numFrames;
+        mFrames = new Rect[numFrames];
+        mFrameWidth = bitmap.getWidth() / numFrames;
+        mFrameHeight = bitmap.getHeight();
+        for (int i = 0; i < numFrames; i++) {
+            mFrames[i] = new Rect(i * mFrameWidth, 0, (i + 1) * mFrameWidth, mFrameHeight);
+        }
+    }
+
+    // Null once the sheet has been packed into an atlas and its bitmap freed
+    public Bitmap getBitmap() {
+        return mBitmap;
+    }
+
+    // Forget the bitmap after packing, so the owner can free it; frame sizes and masks stay
+    void dropBitmap() {
+        mBitmap = null;
+    }
+
+    public int getNumFrames() {
+        return mNumFrames;
+    }
+
+    public Rect getFrame(int index) {
+        return mFrames[index];
+    }
+
+    public int getFrameWidth() {
+        return mFrameWidth;
+    }
+
+    public int getFrameHeight() {
+        return mFrameHeight;
+    }
+
+    // Index of a frame in the TextureAtlas this sheet was packed into
+    public int getAtlasFrame(int index) {
+        return mAtlasFrame + index;
+    }
+
+    void setAtlasFrame(int atlasFrame) {
+        mAtlasFrame = atlasFrame;
+    }
+
+    public CollisionMask getCollisionMask() {
+        return mCollisionMask;
+    }
+
+    public void setCollisionMask(CollisionMask collisionMask) {
+        mCollisionMask = collisionMask;
+    }
+}
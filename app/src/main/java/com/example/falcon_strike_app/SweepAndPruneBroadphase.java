@@ -0,0 +1,78 @@
+package com.example.falcon_strike_app;
+
+// Sort-and-sweep broadphase on the X axis. The order is kept between passes and repaired by insertion
+// sort, which is close to linear when objects mostly move along Y.
+public class SweepAndPruneBroadphase implements Broadphase {
+
+    private final PairBuffer mPairs = new PairBuffer();
+
+    private int[] mOrder = new int[64];  // Entity indices sorted by left edge
+    private int mOrderCount;  // Entries in mOrder from the last pass
+
+    @Override
+    public int findPairs(float[] left, float[] top, float[] right, float[] bottom, int count) {
+        updateOrder(count);
+        insertionSort(left);
+
+        mPairs.clear();
+        int[] order = mOrder;
+        for (int i = 0; i < count; i++) {
+            int a = order[i];
+            float rightA = right[a];
+            for (int j = i + 1; j < count; j++) {
+                int b = order[j];
+                if (left[b] >= rightA) break;  // Everything further along starts past our right edge
+                if (top[a] < bottom[b] && top[b] < bottom[a] && left[a] < right[b]) {
+                    mPairs.add(a, b);
+                }
+            }
+        }
+        return mPairs.size();
+    }
+
+    @Override
+    public int[] getPairs() {
+        return mPairs.getPairs();
+    }
+
+    @Override
+    public int getPairCount() {
+        return mPairs.size();
+    }
+
+    // Keep the previous order for surviving indices and append new ones at the end
+    private void updateOrder(int count) {
+        if (mOrder.length < count) {
+            int[] order = new int[Math.max(count, mOrder.length * 2)];
+            System.arraycopy(mOrder, 0, order, 0, mOrderCount);
+            mOrder = order;
+        }
+        if (count < mOrderCount) {
+            int kept = 0;
+            for (int i = 0; i < mOrderCount; i++) {
+                if (mOrder[i] < count) {
+                    mOrder[kept++] = mOrder[i];
+                }
+            }
+        } else {
+            for (int i = mOrderCount; i < count; i++) {
+                mOrder[i] = i;
+            }
+        }
+        mOrderCount = count;
+    }
+
+    private void insertionSort(float[] left) {
+        int[] order = mOrder;
+        for (int i = 1; i < mOrderCount; i++) {
+            int index = order[i];
+            float key = left[index];
+            int j = i - 1;
+            while (j >= 0 && left[order[j]] > key) {
+                order[j + 1] = order[j];
+                j--;
+            }
+            order[j + 1] = index;
+        }
+    }
+}
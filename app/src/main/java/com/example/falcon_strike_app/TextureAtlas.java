@@ -0,0 +1,112 @@
+package com.example.falcon_strike_app;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Rect;
+
+import java.util.Arrays;
+
+// Packs sprite sheets onto shelves in as few atlas pages as possible, padding each frame so filtering
+// never picks up a neighbour, so that SpriteBatch can draw every sprite on a page with one call.
+public class TextureAtlas {
+    private static final int PADDING = 2;  // Transparent pixels around each frame
+
+    private final Bitmap[] mPages;
+    private final int[] mFramePage;  // Page of each atlas frame
+    private final float[] mFrameUV;  // Left, top, right, bottom of each atlas frame, in page pixels
+
+    // Pack every frame of every non-null sheet into pages of at most maxPageSize x maxPageSize pixels.
+    // The frames of one sheet get consecutive atlas frame indices, see SpriteSheet.getAtlasFrame().
+    public TextureAtlas(SpriteSheet[] sheets, int maxPageSize) {
+        Integer[] order = new Integer[sheets.length];
+        int[] firstFrame = new int[sheets.length];
+        int frameCount = 0;
+        for (int i = 0; i < sheets.length; i++) {
+            order[i] = i;
+            firstFrame[i] = frameCount;
+            if (sheets[i] != null) {
+                sheets[i].setAtlasFrame(frameCount);
+                frameCount += sheets[i].getNumFrames();
+            }
+        }
+        Arrays.sort(order, (a, b) -> height(sheets[b]) - height(sheets[a]));
+
+        // Shelf packing: fill a row left to right, start a new row below the tallest frame of the
+        // current one, and a new page when the next row does not fit
+        mFramePage = new int[frameCount];
+        mFrameUV = new float[frameCount * 4];
+        int[] pageWidth = new int[frameCount + 1];
+        int[] pageHeight = new int[frameCount + 1];
+        int page = 0, x = 0, y = 0, shelfHeight = 0;
+        for (int i : order) {
+            SpriteSheet sheet = sheets[i];
+            if (sheet == null) continue;
+            int width = sheet.getFrameWidth() + PADDING * 2;
+            int height = sheet.getFrameHeight() + PADDING * 2;
+            if (width > maxPageSize || height > maxPageSize) {
+                throw new IllegalArgumentException("Frames of sheet " + i + " (" + width + "x" + height
+                        + ") do not fit a " + maxPageSize + " pixel atlas page");
+            }
+            for (int f = 0; f < sheet.getNumFrames(); f++) {
+                if (x + width > maxPageSize) {
+                    x = 0;
+                    y += shelfHeight;
+                    shelfHeight = 0;
+                }
+                if (y + height > maxPageSize) {
+                    page++;
+                    x = y = shelfHeight = 0;
+                }
+                int frame = firstFrame[i] + f;
+                mFramePage[frame] = page;
+                mFrameUV[frame * 4] = x + PADDING;
+                mFrameUV[frame * 4 + 1] = y + PADDING;
+                mFrameUV[frame * 4 + 2] = x + PADDING + sheet.getFrameWidth();
+                mFrameUV[frame * 4 + 3] = y + PADDING + sheet.getFrameHeight();
+                x += width;
+                shelfHeight = Math.max(shelfHeight, height);
+                pageWidth[page] = Math.max(pageWidth[page], x);
+                pageHeight[page] = Math.max(pageHeight[page], y + height);
+            }
+        }
+
+        mPages = new Bitmap[frameCount > 0 ? page + 1 : 0];
+        Canvas[] canvases = new Canvas[mPages.length];
+        for (int p = 0; p < mPages.length; p++) {
+            mPages[p] = Bitmap.createBitmap(pageWidth[p], pageHeight[p], Bitmap.Config.ARGB_8888);
+            canvases[p] = new Canvas(mPages[p]);
+        }
+        Rect destination = new Rect();
+        for (int i = 0; i < sheets.length; i++) {
+            SpriteSheet sheet = sheets[i];
+            if (sheet == null) continue;
+            for (int f = 0; f < sheet.getNumFrames(); f++) {
+                int frame = firstFrame[i] + f;
+                destination.set((int) mFrameUV[frame * 4], (int) mFrameUV[frame * 4 + 1],
+                        (int) mFrameUV[frame * 4 + 2], (int) mFrameUV[frame * 4 + 3]);
+                canvases[mFramePage[frame]].drawBitmap(sheet.getBitmap(), sheet.getFrame(f), destination, null);
+            }
+        }
+    }
+
+    private static int height(SpriteSheet sheet) {
+        return sheet == null ? 0 : sheet.getFrameHeight();
+    }
+
+    public int getPageCount() {
+        return mPages.length;
+    }
+
+    public Bitmap getPage(int page) {
+        return mPages[page];
+    }
+
+    public int getFramePage(int frame) {
+        return mFramePage[frame];
+    }
+
+    // UV table, four floats per atlas frame: left, top, right, bottom in page pixels
+    float[] getFrameUV() {
+        return mFrameUV;
+    }
+}
@@ -0,0 +1,227 @@
+package com.example.falcon_strike_app;
+
+import java.util.Arrays;
+
+// Hierarchical timer wheel on game time, one tick per millisecond: 256 buckets on level 0 and 64 on each
+// level above, cascaded down as time reaches them, so scheduling, cancelling and firing are O(1).
+public class TimerWheel {
+    public static final int NO_TIMER = -1;
+
+    private static final int LEVEL0_BITS = 8;
+    private static final int LEVEL_BITS = 6;
+    private static final int LEVELS = 4;
+    private static final int LEVEL0_SIZE = 1 << LEVEL0_BITS;
+    private static final int LEVEL_SIZE = 1 << LEVEL_BITS;
+    private static final long MAX_DELAY = (1L << (LEVEL0_BITS + (LEVELS - 1) * LEVEL_BITS)) - 1;  // About 18 hours
+    private static final int FIRING = LEVEL0_SIZE + (LEVELS - 1) * LEVEL_SIZE;  // Extra bucket for timers being fired
+    private static final int NO_BUCKET = -1;
+    private static final int INDEX_BITS = 16;
+    private static final int INDEX_MASK = (1 << INDEX_BITS) - 1;
+    private static final int GENERATION_MASK = 0x7fff;
+    private static final int INITIAL_CAPACITY = 32;
+
+    private final int[] mBucketHead = new int[FIRING + 1];  // First timer of each bucket, or -1
+
+    // Timer data, indexed by timer
+    private Runnable[] mCallback = new Runnable[INITIAL_CAPACITY];
+    private long[] mDeadline = new long[INITIAL_CAPACITY];
+    private long[] mPeriod = new long[INITIAL_CAPACITY];  // 0 for one-shot timers
+    private int[] mGeneration = new int[INITIAL_CAPACITY];
+    private int[] mBucket = new int[INITIAL_CAPACITY];  // Bucket the timer is linked into, NO_BUCKET when free
+    private int[] mNext = new int[INITIAL_CAPACITY];  // Next timer in the bucket, or in the free list
+    private int[] mPrev = new int[INITIAL_CAPACITY];
+    private int mFreeHead = -1;
+    private int mUsed;  // Timers ever handed out, the rest of the arrays is untouched
+
+    private long mNow;  // Current tick
+    private float mCarryMillis;  // Game time not yet turned into whole ticks
+    private int mActive;  // Scheduled timers
+
+    public TimerWheel() {
+        Arrays.fill(mBucketHead, -1);
+    }
+
+    // Current time of the wheel in milliseconds of game time
+    public long now() {
+        return mNow;
+    }
+
+    public int getActiveCount() {
+        return mActive;
+    }
+
+    // Run callback once, delayMillis from now (at least one tick). Returns the timer handle.
+    public int schedule(Runnable callback, long delayMillis) {
+        return schedule(callback, delayMillis, 0);
+    }
+
+    // Run callback delayMillis from now and then every periodMillis until cancelled
+    public int schedule(Runnable callback, long delayMillis, long periodMillis) {
+        int timer = allocate();
+        mCallback[timer] = callback;
+        mDeadline[timer] = mNow + Math.max(1, Math.min(delayMillis, MAX_DELAY));
+        mPeriod[timer] = Math.max(0, periodMillis);
+        insert(timer);
+        mActive++;
+        return (mGeneration[timer] << INDEX_BITS) | timer;
+    }
+
+    // Cancel a pending timer; returns false if it already fired or was cancelled, or the handle is stale
+    public boolean cancel(int handle) {
+        if (handle < 0) return false;
+        int timer = handle & INDEX_MASK;
+        if (timer >= mUsed || mGeneration[timer] != (handle >>> INDEX_BITS) || mBucket[timer] == NO_BUCKET) {
+            return false;
+        }
+        unlink(timer);
+        release(timer);
+        return true;
+    }
+
+    // Cancel every timer and restart the clock at zero
+    public void clear() {
+        for (int timer = 0; timer < mUsed; timer++) {
+            if (mBucket[timer] != NO_BUCKET) {
+                unlink(timer);
+                release(timer);
+            }
+        }
+        mNow = 0;
+        mCarryMillis = 0f;
+    }
+
+    // Advance game time and fire every timer that comes due, in deadline order, on the calling thread
+    public void advance(float deltaTime) {
+        mCarryMillis += deltaTime * 1000f;
+        long ticks = (long) mCarryMillis;
+        mCarryMillis -= ticks;
+        for (long t = 0; t < ticks; t++) {
+            tick();
+        }
+    }
+
+    private void tick() {
+        mNow++;
+        if ((mNow & (LEVEL0_SIZE - 1)) == 0) {
+            cascade(1);
+        }
+
+        // Move the due bucket to the firing list, so callbacks can schedule and cancel freely
+        int bucket = (int) (mNow & (LEVEL0_SIZE - 1));
+        while (mBucketHead[bucket] != -1) {
+            int timer = mBucketHead[bucket];
+            unlink(timer);
+            link(timer, FIRING);
+        }
+        while (mBucketHead[FIRING] != -1) {
+            int timer = mBucketHead[FIRING];
+            unlink(timer);
+            Runnable callback = mCallback[timer];
+            if (mPeriod[timer] > 0) {
+                mDeadline[timer] += mPeriod[timer];
+                insert(timer);
+            } else {
+                release(timer);
+            }
+            callback.run();
+        }
+    }
+
+    // Re-insert the current bucket of a level, after cascading the level above it if that one wrapped too
+    private void cascade(int level) {
+        int shift = LEVEL0_BITS + (level - 1) * LEVEL_BITS;
+        int index = (int) ((mNow >> shift) & (LEVEL_SIZE - 1));
+        if (index == 0 && level < LEVELS - 1) {
+            cascade(level + 1);
+        }
+        int bucket = bucketOf(level, index);
+        int timer = mBucketHead[bucket];
+        mBucketHead[bucket] = -1;
+        while (timer != -1) {
+            int next = mNext[timer];
+            insert(timer);
+            timer = next;
+        }
+    }
+
+    private void insert(int timer) {
+        long deadline = mDeadline[timer];
+        long delay = deadline - mNow;
+        int bucket;
+        if (delay < LEVEL0_SIZE) {
+            bucket = (int) (deadline & (LEVEL0_SIZE - 1));
+        } else {
+            int level = 1;
+            while (level < LEVELS - 1 && delay >= 1L << (LEVEL0_BITS + level * LEVEL_BITS)) {
+                level++;
+            }
+            int shift = LEVEL0_BITS + (level - 1) * LEVEL_BITS;
+            bucket = bucketOf(level, (int) ((deadline >> shift) & (LEVEL_SIZE - 1)));
+        }
+        link(timer, bucket);
+    }
+
+    private static int bucketOf(int level, int index) {
+        return level == 0 ? index : LEVEL0_SIZE + (level - 1) * LEVEL_SIZE + index;
+    }
+
+    private void link(int timer, int bucket) {
+        int head = mBucketHead[bucket];
+        mNext[timer] = head;
+        mPrev[timer] = -1;
+        if (head != -1) {
+            mPrev[head] = timer;
+        }
+        mBucketHead[bucket] = timer;
+        mBucket[timer] = bucket;
+    }
+
+    private void unlink(int timer) {
+        int next = mNext[timer];
+        int prev = mPrev[timer];
+        if (prev != -1) {
+            mNext[prev] = next;
+        } else {
+            mBucketHead[mBucket[timer]] = next;
+        }
+        if (next != -1) {
+            mPrev[next] = prev;
+        }
+        mBucket[timer] = NO_BUCKET;
+    }
+
+    private int allocate() {
+        if (mFreeHead != -1) {
+            int timer = mFreeHead;
+            mFreeHead = mNext[timer];
+            return timer;
+        }
+        if (mUsed == mCallback.length) {
+            grow(mUsed * 2);
+        }
+        if (mUsed > INDEX_MASK) {
+            throw new IllegalStateException("Too many timers: " + mUsed);
+        }
+        mBucket[mUsed] = NO_BUCKET;
+        return mUsed++;
+    }
+
+    private void release(int timer) {
+        mCallback[timer] = null;
+        mGeneration[timer] = (mGeneration[timer] + 1) & GENERATION_MASK;
+        mBucket[timer] = NO_BUCKET;
+        mNext[timer] = mFreeHead;
+        mFreeHead = timer;
+        mActive--;
+    }
+
+    private void grow(int capacity) {
+        mCallback = Arrays.copyOf(mCallback, capacity);
+        mDeadline = Arrays.copyOf(mDeadline, capacity);
+        mPeriod = Arrays.copyOf(mPeriod, capacity);
+        mGeneration = Arrays.copyOf(mGeneration, capacity);
+        mBucket = Arrays.copyOf(mBucket, capacity);
+        mNext = Arrays.copyOf(mNext, capacity);
+        mPrev = Arrays.copyOf(mPrev, capacity);
+    }
+}
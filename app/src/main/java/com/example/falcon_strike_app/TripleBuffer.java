@@ -0,0 +1,39 @@
+package com.example.falcon_strike_app;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Lock-free hand-off of the latest value from one producer thread to one consumer thread; neither side
+// waits, and a buffer the consumer may still read is never written.
+public class TripleBuffer<T> {
+    private static final int INDEX_MASK = 0x3;
+    private static final int FRESH = 0x4;  // Set when the middle buffer holds a value the consumer has not seen
+
+    private final Object[] mBuffers;
+    private final AtomicInteger mMiddle = new AtomicInteger(1);  // Middle buffer index, plus the FRESH flag
+    private int mBack = 0;  // Owned by the producer
+    private int mFront = 2;  // Owned by the consumer
+
+    public TripleBuffer(T first, T second, T third) {
+        mBuffers = new Object[]{first, second, third};
+    }
+
+    // Producer side: the buffer to fill for the next publish()
+    @SuppressWarnings("unchecked")
+    public T getBack() {
+        return (T) mBuffers[mBack];
+    }
+
+    // Producer side: make the back buffer the newest value and take the old middle buffer to fill next
+    public void publish() {
+        mBack = mMiddle.getAndSet(mBack | FRESH) & INDEX_MASK;
+    }
+
+    // Consumer side: the newest published value, or the previous one again if nothing new was published
+    @SuppressWarnings("unchecked")
+    public T acquire() {
+        if ((mMiddle.get() & FRESH) != 0) {
+            mFront = mMiddle.getAndSet(mFront) & INDEX_MASK;
+        }
+        return (T) mBuffers[mFront];
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.falcon_strike_app;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that CollisionEventRing delivers events in order, consumes an entity only when the
+ * listener accepts its hit, forgets consumed entities between drains, and drops events when full.
+ */
+public class CollisionEventRingTest {
+    private static final int PLAYER = EntityStore.NO_HANDLE;
+    private static final int B1 = 1, B2 = 2, E10 = 10, E11 = 11;
+
+    // Records every delivered event as "sprite x enemy"; hits on the player are accepted only when mVulnerable
+    private static class Recorder implements CollisionListener {
+        final List<String> mHits = new ArrayList<>();
+        boolean mVulnerable = true;
+
+        @Override
+        public boolean onPlayerEnemyCollision(int enemy) {
+            mHits.add("P x E" + enemy);
+            return mVulnerable;
+        }
+
+        @Override
+        public boolean onBulletEnemyCollision(int bullet, int enemy) {
+            mHits.add("B" + bullet + " x E" + enemy);
+            return true;
+        }
+    }
+
+    @Test
+    public void skippedEventConsumesNothing() {
+        CollisionEventRing ring = new CollisionEventRing(8, 16);
+        ring.offer(B1, E10);
+        ring.offer(B1, E11);  // B1 is gone already, so E11 must stay available
+        ring.offer(B2, E11);
+        Recorder recorder = new Recorder();
+
+        assertEquals(2, ring.drain(recorder));
+        assertEquals(Arrays.asList("B1 x E10", "B2 x E11"), recorder.mHits);
+    }
+
+    @Test
+    public void rejectedHitLeavesEnemyForLaterEvents() {
+        CollisionEventRing ring = new CollisionEventRing(8, 16);
+        ring.offer(PLAYER, E10);
+        ring.offer(B1, E10);
+        Recorder recorder = new Recorder();
+        recorder.mVulnerable = false;  // Invincible player
+
+        assertEquals(1, ring.drain(recorder));
+        assertEquals(Arrays.asList("P x E10", "B1 x E10"), recorder.mHits);
+    }
+
+    @Test
+    public void consumedEntitiesAreForgottenAfterTheDrain() {
+        CollisionEventRing ring = new CollisionEventRing(8, 16);
+        Recorder recorder = new Recorder();
+        ring.offer(B1, E10);
+        ring.offer(B2, E10);
+        assertEquals(1, ring.drain(recorder));
+
+        ring.offer(B2, E10);
+        assertEquals(1, ring.drain(recorder));
+        assertEquals(Arrays.asList("B1 x E10", "B2 x E10"), recorder.mHits);
+    }
+
+    @Test
+    public void slotReusedWithNewGenerationIsNotConsumed() {
+        CollisionEventRing ring = new CollisionEventRing(8, 16);
+        int reused = (1 << 16) | E10;  // Same slot as E10, next generation
+        ring.offer(B1, E10);
+        ring.offer(B2, reused);
+        Recorder recorder = new Recorder();
+
+        assertEquals(2, ring.drain(recorder));
+    }
+
+    @Test
+    public void slotsPastTheReservedCapacityAreStillDelivered() {
+        CollisionEventRing ring = new CollisionEventRing(8, 4);
+        ring.offer(B1, E10);
+        ring.offer(B2, E11);
+        Recorder recorder = new Recorder();
+
+        assertEquals(2, ring.drain(recorder));
+    }
+
+    @Test
+    public void fullRingDropsAndCounts() {
+        CollisionEventRing ring = new CollisionEventRing(4, 16);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(ring.offer(B1, E10 + i));
+        }
+        assertFalse(ring.offer(B2, E10));
+        assertEquals(1, ring.getOverflowCount());
+
+        Recorder recorder = new Recorder();
+        ring.drain(recorder);
+        assertEquals(Arrays.asList("B1 x E10"), recorder.mHits);  // The other three reuse B1
+        assertTrue(ring.offer(B2, E10));  // Room again after the drain
+        assertEquals(5, ring.getOfferedCount());
+    }
+}
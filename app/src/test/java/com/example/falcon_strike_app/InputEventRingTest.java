@@ -0,0 +1,63 @@
+package com.example.falcon_strike_app;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that InputEventRing keeps room for a down and an up when moves fill it, so a drag always ends.
+ */
+public class InputEventRingTest {
+    private static final int CAPACITY = 8;
+
+    // Records the actions in the order they are drained
+    private static class Recorder implements InputEventRing.Consumer {
+        final List<Integer> mActions = new ArrayList<>();
+
+        @Override
+        public void onTouch(int action, float x, float y, long eventTimeMillis) {
+            mActions.add(action);
+        }
+    }
+
+    @Test
+    public void movesLeaveRoomForDownAndUp() {
+        InputEventRing ring = new InputEventRing(CAPACITY);
+        assertTrue(ring.offer(InputEventRing.ACTION_DOWN, 0, 0, 0));
+        int moves = 0;
+        while (ring.offer(InputEventRing.ACTION_MOVE, moves, 0, moves)) {
+            moves++;
+        }
+        assertEquals(CAPACITY - 3, moves);
+        assertTrue("up after a full run of moves", ring.offer(InputEventRing.ACTION_UP, 0, 0, 100));
+        assertTrue("down of the next drag", ring.offer(InputEventRing.ACTION_DOWN, 0, 0, 101));
+        assertFalse("ring full", ring.offer(InputEventRing.ACTION_UP, 0, 0, 102));
+
+        Recorder recorder = new Recorder();
+        assertEquals(CAPACITY, ring.drain(recorder));
+        assertEquals(InputEventRing.ACTION_UP, (int) recorder.mActions.get(CAPACITY - 2));
+        assertEquals(InputEventRing.ACTION_DOWN, (int) recorder.mActions.get(CAPACITY - 1));
+    }
+
+    @Test
+    public void drainMakesRoomForMovesAgain() {
+        InputEventRing ring = new InputEventRing(CAPACITY);
+        for (int i = 0; i < CAPACITY - 2; i++) {
+            assertTrue(ring.offer(InputEventRing.ACTION_MOVE, i, 0, i));
+        }
+        assertFalse(ring.offer(InputEventRing.ACTION_MOVE, 0, 0, 0));
+        assertEquals(1, ring.getOverflowCount());
+
+        Recorder recorder = new Recorder();
+        ring.drain(recorder);
+        assertTrue(ring.offer(InputEventRing.ACTION_MOVE, 0, 0, 0));
+        ring.drain(recorder);
+        assertEquals(Arrays.asList(1, 1, 1, 1, 1, 1, 1), recorder.mActions);
+    }
+}
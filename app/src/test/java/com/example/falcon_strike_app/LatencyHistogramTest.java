@@ -0,0 +1,49 @@
+package com.example.falcon_strike_app;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that the log-linear buckets of LatencyHistogram cover every value without gaps and that
+ * its percentiles stay within one bucket (1/16) of the exact ones.
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void bucketsAreContiguous() {
+        long previousHighest = -1;
+        for (int bucket = 0; bucket <= LatencyHistogram.bucketOf(LatencyHistogram.MAX_VALUE); bucket++) {
+            long highest = LatencyHistogram.highestValueOf(bucket);
+            assertEquals("first value of bucket " + bucket, bucket, LatencyHistogram.bucketOf(previousHighest + 1));
+            assertEquals("last value of bucket " + bucket, bucket, LatencyHistogram.bucketOf(highest));
+            previousHighest = highest;
+        }
+        assertEquals(LatencyHistogram.MAX_VALUE, previousHighest);
+    }
+
+    @Test
+    public void percentilesWithinOneBucket() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Random random = new Random(42);
+        long[] values = new long[10000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = 100000 + (long) (random.nextDouble() * random.nextDouble() * 20000000);  // 0.1 to 20 ms, skewed low
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+
+        assertEquals(values.length, histogram.getCount());
+        assertEquals(values[values.length - 1], histogram.getMax());
+        for (double percentile : new double[]{50, 95, 99}) {
+            long exact = values[(int) Math.ceil(values.length * percentile / 100) - 1];
+            long reported = histogram.getPercentile(percentile);
+            assertTrue("p" + percentile + " " + reported + " below " + exact, reported >= exact);
+            assertTrue("p" + percentile + " " + reported + " too far above " + exact, reported <= exact + exact / 16);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.falcon_strike_app;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that TimerWheel fires every timer on its exact tick across the level boundaries, that
+ * cancelling works once a timer has cascaded to a lower level, that stale handles are ignored after
+ * their timer is reused, and that timers driven by a paused GameClock wait and then fire in order.
+ */
+public class TimerWheelTest {
+    private static final long LEVEL1 = 256;  // First delay on level 1
+    private static final long LEVEL2 = 256 * 64;
+    private static final long LEVEL3 = 256 * 64 * 64;
+
+    private final TimerWheel mWheel = new TimerWheel();
+
+    // Records the wheel time it fired at under its delay
+    private class Probe implements Runnable {
+        final long mDelay;
+        long mFiredAt = -1;
+        int mFireCount;
+
+        Probe(long delay) {
+            mDelay = delay;
+        }
+
+        @Override
+        public void run() {
+            mFiredAt = mWheel.now();
+            mFireCount++;
+        }
+    }
+
+    @Test
+    public void firesOnTheTickAcrossLevelBoundaries() {
+        long[] delays = {1, LEVEL1 - 1, LEVEL1, LEVEL1 + 1, LEVEL2 - 1, LEVEL2, LEVEL2 + 1,
+                LEVEL3 - 1, LEVEL3, LEVEL3 + 1, 3 * LEVEL3 + LEVEL2 + 7};
+        Probe[] probes = new Probe[delays.length];
+        for (int i = 0; i < delays.length; i++) {
+            probes[i] = new Probe(delays[i]);
+            mWheel.schedule(probes[i], delays[i]);
+        }
+        while (mWheel.getActiveCount() > 0) {
+            mWheel.advance(1f);
+        }
+        for (Probe probe : probes) {
+            assertEquals("delay " + probe.mDelay, probe.mDelay, probe.mFiredAt);
+            assertEquals("fire count for delay " + probe.mDelay, 1, probe.mFireCount);
+        }
+    }
+
+    @Test
+    public void firesOnTheTickWhenScheduledOffBoundary() {
+        mWheel.advance(0.1f);  // Not aligned to any level
+        long start = mWheel.now();
+        Probe level1 = new Probe(LEVEL2 - 1);
+        Probe level2 = new Probe(LEVEL3 - 1);
+        mWheel.schedule(level1, level1.mDelay);
+        mWheel.schedule(level2, level2.mDelay);
+        while (mWheel.getActiveCount() > 0) {
+            mWheel.advance(1f);
+        }
+        assertEquals(start + level1.mDelay, level1.mFiredAt);
+        assertEquals(start + level2.mDelay, level2.mFiredAt);
+    }
+
+    @Test
+    public void cancelAfterCascade() {
+        Probe probe = new Probe(LEVEL1 + 44);
+        int handle = mWheel.schedule(probe, probe.mDelay);
+        mWheel.advance((LEVEL1 + 4) / 1000f);  // Past the level 1 boundary, so the timer now sits on level 0
+        assertTrue(mWheel.cancel(handle));
+        assertFalse("second cancel", mWheel.cancel(handle));
+        assertEquals(0, mWheel.getActiveCount());
+
+        mWheel.advance(1f);
+        assertEquals(0, probe.mFireCount);
+    }
+
+    @Test
+    public void cancelLeavesTheRestOfTheBucket() {
+        Probe first = new Probe(LEVEL2 + 3);
+        Probe second = new Probe(LEVEL2 + 3);
+        Probe third = new Probe(LEVEL2 + 3);
+        mWheel.schedule(first, first.mDelay);
+        int handle = mWheel.schedule(second, second.mDelay);
+        mWheel.schedule(third, third.mDelay);
+        mWheel.advance((LEVEL2 + 1) / 1000f);
+        assertTrue(mWheel.cancel(handle));  // Unlink from the middle of a cascaded bucket
+
+        mWheel.advance(1f);
+        assertEquals(1, first.mFireCount);
+        assertEquals(0, second.mFireCount);
+        assertEquals(1, third.mFireCount);
+    }
+
+    @Test
+    public void staleHandleIsIgnoredAfterReuse() {
+        Probe old = new Probe(10);
+        int oldHandle = mWheel.schedule(old, old.mDelay);
+        mWheel.advance(0.02f);
+        assertEquals(1, old.mFireCount);
+        assertFalse("fired timer", mWheel.cancel(oldHandle));
+
+        Probe reused = new Probe(10);
+        int newHandle = mWheel.schedule(reused, reused.mDelay);  // Takes the freed timer
+        assertTrue(newHandle != oldHandle);
+        assertFalse("stale handle", mWheel.cancel(oldHandle));
+        mWheel.advance(0.02f);
+        assertEquals(1, reused.mFireCount);
+    }
+
+    @Test
+    public void pausedClockHoldsTimersThenFiresInDeadlineOrder() {
+        GameClock clock = new GameClock();
+        List<Long> fired = new ArrayList<>();
+        for (long delay : new long[]{50, 300, 20, LEVEL1 + 10, 35}) {
+            mWheel.schedule(() -> fired.add(mWheel.now()), delay);
+        }
+        clock.setPaused(true);
+        for (int step = 0; step < 60; step++) {
+            mWheel.advance(clock.advance(1 / 60f));
+        }
+        assertEquals(0, mWheel.now());
+        assertTrue(fired.isEmpty());
+
+        clock.setPaused(false);
+        mWheel.advance(clock.advance(0.5f));  // One long step after resuming
+        assertEquals(Arrays.asList(20L, 35L, 50L, LEVEL1 + 10, 300L), fired);
+    }
+
+    @Test
+    public void periodicTimerKeepsItsPhase() {
+        Probe probe = new Probe(100);
+        int handle = mWheel.schedule(probe, 100, 100);
+        mWheel.advance(1.05f);
+        assertEquals(10, probe.mFireCount);
+        assertEquals(1000, probe.mFiredAt);
+        assertTrue(mWheel.cancel(handle));
+        mWheel.advance(1f);
+        assertEquals(10, probe.mFireCount);
+    }
+}